@@ -0,0 +1,133 @@
+package com.codedreamplus.redis.benchmark;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 基准测试使用的对象
+ *
+ * @author cool
+ */
+public class BenchmarkData {
+
+	/**
+	 * 对象大小
+	 */
+	public enum Shape {
+		/**
+		 * 单个扁平对象
+		 */
+		SMALL,
+		/**
+		 * 带明细和扩展属性的订单
+		 */
+		MEDIUM,
+		/**
+		 * 一页订单
+		 */
+		LARGE
+	}
+
+	/**
+	 * 按大小创建对象
+	 *
+	 * @param shape 大小
+	 * @return 对象
+	 */
+	public static Object create(Shape shape) {
+		switch (shape) {
+			case SMALL:
+				return user(1L);
+			case MEDIUM:
+				return order(1L, 5);
+			default:
+				OrderPage page = new OrderPage();
+				page.setPage(1);
+				page.setTotal(10000L);
+				for (long i = 0; i < 50; i++) {
+					page.getOrders().add(order(i, 10));
+				}
+				return page;
+		}
+	}
+
+	private static User user(long id) {
+		User user = new User();
+		user.setId(id);
+		user.setName("user-" + id);
+		user.setAge(30);
+		user.setActive(true);
+		return user;
+	}
+
+	private static Order order(long id, int items) {
+		Order order = new Order();
+		order.setId(id);
+		order.setUser(user(id));
+		order.setStatus("PAID");
+		order.setAmount(new BigDecimal("199.90"));
+		order.setCreateTime(new Date(1600000000000L + id));
+		for (int i = 0; i < items; i++) {
+			OrderItem item = new OrderItem();
+			item.setSku("sku-" + i);
+			item.setTitle("商品标题 " + i);
+			item.setQuantity(i + 1);
+			item.setPrice(new BigDecimal("19.99"));
+			order.getItems().add(item);
+		}
+		order.getAttributes().put("channel", "app");
+		order.getAttributes().put("coupon", "NEWUSER");
+		order.getAttributes().put("remark", "请尽快发货");
+		return order;
+	}
+
+	@Data
+	@NoArgsConstructor
+	public static class User implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private Long id;
+		private String name;
+		private int age;
+		private boolean active;
+	}
+
+	@Data
+	@NoArgsConstructor
+	public static class OrderItem implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private String sku;
+		private String title;
+		private int quantity;
+		private BigDecimal price;
+	}
+
+	@Data
+	@NoArgsConstructor
+	public static class Order implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private Long id;
+		private User user;
+		private String status;
+		private BigDecimal amount;
+		private Date createTime;
+		private List<OrderItem> items = new ArrayList<>();
+		private Map<String, String> attributes = new LinkedHashMap<>();
+	}
+
+	@Data
+	@NoArgsConstructor
+	public static class OrderPage implements Serializable {
+		private static final long serialVersionUID = 1L;
+		private int page;
+		private long total;
+		private List<Order> orders = new ArrayList<>();
+	}
+}
@@ -0,0 +1,69 @@
+package com.codedreamplus.redis.benchmark;
+
+import com.codedreamplus.redis.cache.CacheKey;
+import com.codedreamplus.redis.cache.ICacheKey;
+import com.codedreamplus.redis.serializer.RedisKeySerializer;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.cache.interceptor.SimpleKey;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * cache key 组装和 key 序列化
+ *
+ * @author cool
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyBenchmark {
+	private final ICacheKey cacheKey = new ICacheKey() {
+		@Override
+		public String getPrefix() {
+			return "user:info:";
+		}
+
+		@Override
+		public Duration getExpire() {
+			return Duration.ofMinutes(10);
+		}
+	};
+	private final RedisKeySerializer keySerializer = new RedisKeySerializer();
+	private final String stringKey = "user:info:10086";
+	private final Long longKey = 10086L;
+	private final SimpleKey simpleKey = new SimpleKey("a", 1);
+
+	@Benchmark
+	public CacheKey getKeyWithoutSuffix() {
+		return cacheKey.getKey();
+	}
+
+	@Benchmark
+	public CacheKey getKeyWithSuffix() {
+		return cacheKey.getKey(10086L);
+	}
+
+	@Benchmark
+	public CacheKey getKeyWithSuffixes() {
+		return cacheKey.getKey("tenant", 10086L, "profile");
+	}
+
+	@Benchmark
+	public byte[] serializeString() {
+		return keySerializer.serialize(stringKey);
+	}
+
+	@Benchmark
+	public byte[] serializeLong() {
+		return keySerializer.serialize(longKey);
+	}
+
+	@Benchmark
+	public byte[] serializeSimpleKey() {
+		return keySerializer.serialize(simpleKey);
+	}
+}
@@ -0,0 +1,48 @@
+package com.codedreamplus.redis.benchmark;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import java.util.Collection;
+import java.util.Collections;
+
+/**
+ * 把 SerializerBenchmark 编码后的字节数作为次级指标 payload.bytes 写入 JMH 结果
+ *
+ * <p>
+ * AuxCounters 的 EVENTS 计数在各轮之间累加，不适合记录固定值，因此通过 profiler 按平均值汇总，
+ * 使用方式：-prof com.codedreamplus.redis.benchmark.PayloadProfiler
+ * </p>
+ *
+ * @author cool
+ */
+public class PayloadProfiler implements InternalProfiler {
+	/**
+	 * 当前参数组合编码后的字节数，由 SerializerBenchmark 在 Setup 时设置，未设置时为 -1
+	 */
+	static volatile long payloadBytes = -1L;
+
+	@Override
+	public String getDescription() {
+		return "Encoded payload size of SerializerBenchmark";
+	}
+
+	@Override
+	public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+	}
+
+	@Override
+	public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams,
+													   IterationResult result) {
+		long bytes = payloadBytes;
+		if (bytes < 0 || !benchmarkParams.getBenchmark().startsWith(SerializerBenchmark.class.getName())) {
+			return Collections.emptyList();
+		}
+		return Collections.singletonList(new ScalarResult("payload.bytes", bytes, "bytes", AggregationPolicy.AVG));
+	}
+}
@@ -0,0 +1,57 @@
+package com.codedreamplus.redis.benchmark;
+
+import com.codedreamplus.redis.config.CodeDreamPlusRedisProperties;
+import com.codedreamplus.redis.config.ProtoStuffSerializerConfiguration;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各序列化方式的吞吐，序列化器与 RedisTemplate 中使用的一致（包含空值、压缩包装）
+ *
+ * <p>
+ * 分配速率由 -prof gc 统计（gc.alloc.rate.norm 为每次调用分配的字节数），
+ * 编码后的字节数由 {@link PayloadProfiler} 记录为 payload.bytes。
+ * </p>
+ *
+ * @author cool
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializerBenchmark {
+	@Param({"ProtoStuff", "JSON", "JDK", "Primitive"})
+	private CodeDreamPlusRedisProperties.SerializerType serializerType;
+	@Param({"SMALL", "MEDIUM", "LARGE"})
+	private BenchmarkData.Shape shape;
+	@Param({"false", "true"})
+	private boolean compression;
+	private RedisSerializer<Object> serializer;
+	private Object value;
+	private byte[] bytes;
+
+	@Setup
+	public void setup() {
+		CodeDreamPlusRedisProperties properties = new CodeDreamPlusRedisProperties();
+		properties.setSerializerType(serializerType);
+		properties.getCompression().setEnabled(compression);
+		serializer = new ProtoStuffSerializerConfiguration().redisSerializer(properties);
+		value = BenchmarkData.create(shape);
+		bytes = serializer.serialize(value);
+		PayloadProfiler.payloadBytes = bytes.length;
+	}
+
+	@Benchmark
+	public byte[] serialize() {
+		return serializer.serialize(value);
+	}
+
+	@Benchmark
+	public Object deserialize() {
+		return serializer.deserialize(bytes);
+	}
+}
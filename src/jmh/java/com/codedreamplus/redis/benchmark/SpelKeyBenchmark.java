@@ -0,0 +1,48 @@
+package com.codedreamplus.redis.benchmark;
+
+import com.codedreamplus.redis.spel.CodeDreamPlusExpressionEvaluator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.expression.AnnotatedElementKey;
+import org.springframework.expression.EvaluationContext;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分布式锁、限流注解的 SpEL key 计算，与切面中的调用方式一致
+ *
+ * @author cool
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpelKeyBenchmark {
+	@Param({"#userId", "#order.user.id", "#order.id + ':' + #userId"})
+	private String expression;
+	private final CodeDreamPlusExpressionEvaluator evaluator = new CodeDreamPlusExpressionEvaluator();
+	private final Target target = new Target();
+	private Method method;
+	private Object[] args;
+	private AnnotatedElementKey elementKey;
+
+	@Setup
+	public void setup() throws NoSuchMethodException {
+		method = Target.class.getMethod("submit", Long.class, BenchmarkData.Order.class);
+		args = new Object[]{10086L, BenchmarkData.create(BenchmarkData.Shape.MEDIUM)};
+		elementKey = new AnnotatedElementKey(method, Target.class);
+	}
+
+	@Benchmark
+	public String evalAsText() {
+		EvaluationContext context = evaluator.createContext(method, args, target, Target.class, null);
+		return evaluator.evalAsText(expression, elementKey, context);
+	}
+
+	public static class Target {
+		public void submit(Long userId, BenchmarkData.Order order) {
+		}
+	}
+}
@@ -0,0 +1,942 @@
+package com.codedreamplus.redis;
+
+import com.codedreamplus.redis.cache.CacheKey;
+import com.codedreamplus.redis.cache.CacheValue;
+import com.codedreamplus.redis.cache.NearCache;
+import com.codedreamplus.redis.serializer.PrimitiveRedisSerializer;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.Range;
+import io.lettuce.core.RedisFuture;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.cluster.api.async.RedisClusterAsyncCommands;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConverters;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 异步 redis 工具，与 CodeDreamPlusRedis 的命令一一对应，返回 CompletableFuture。
+ * 不包含 SCAN 类的流式遍历、分布式锁、布隆过滤器和批量加载（getAll），CacheKey 的读取不经过本地一级缓存。
+ *
+ * <p>
+ * 基于 Lettuce 异步 API，复用 RedisTemplate 的 key、value 序列化。命令在 Lettuce 的 I/O 线程上完成后，
+ * 反序列化和后续回调都切换到 executor 上执行，不占用 I/O 线程。
+ * </p>
+ *
+ * @author cool
+ */
+@Getter
+@SuppressWarnings("unchecked")
+public class CodeDreamPlusAsyncRedis implements DisposableBean {
+	/**
+	 * 过期后兜底的旧值 key 后缀，与 CodeDreamPlusRedis 一致
+	 */
+	private static final String STALE_SUFFIX = ":stale";
+	private final RedisConnectionFactory connectionFactory;
+	private final RedisSerializer<Object> keySerializer;
+	private final RedisSerializer<Object> valueSerializer;
+	private final RedisSerializer<Object> hashKeySerializer;
+	private final RedisSerializer<Object> hashValueSerializer;
+	/**
+	 * 反序列化和回调执行的线程池
+	 */
+	private final Executor executor;
+	/**
+	 * 本地一级缓存，写入后失效，为 null 时不处理
+	 */
+	@Setter
+	@Nullable
+	private NearCache nearCache;
+
+	public CodeDreamPlusAsyncRedis(RedisTemplate<String, Object> redisTemplate, Executor executor) {
+		RedisConnectionFactory connectionFactory = redisTemplate.getRequiredConnectionFactory();
+		Assert.isInstanceOf(LettuceConnectionFactory.class, connectionFactory,
+			"CodeDreamPlusAsyncRedis requires a LettuceConnectionFactory");
+		this.connectionFactory = connectionFactory;
+		this.keySerializer = (RedisSerializer<Object>) redisTemplate.getKeySerializer();
+		this.valueSerializer = (RedisSerializer<Object>) redisTemplate.getValueSerializer();
+		this.hashKeySerializer = (RedisSerializer<Object>) redisTemplate.getHashKeySerializer();
+		this.hashValueSerializer = (RedisSerializer<Object>) redisTemplate.getHashValueSerializer();
+		this.executor = executor;
+	}
+
+	/**
+	 * 设置缓存，与 CodeDreamPlusRedis.set(CacheKey, Object) 的写入方式一致
+	 *
+	 * @param cacheKey 缓存key
+	 * @param value    缓存value
+	 */
+	public CompletableFuture<Void> set(CacheKey cacheKey, Object value) {
+		return set(cacheKey, value, 0L);
+	}
+
+	/**
+	 * 设置缓存，开启提前刷新时携带写入时间和加载耗时
+	 */
+	private CompletableFuture<Void> set(CacheKey cacheKey, Object value, long loadCost) {
+		if (cacheKey.getRefreshPolicy() != null) {
+			value = new CacheValue(value, System.currentTimeMillis(), loadCost);
+		}
+		String key = cacheKey.getKey();
+		Duration expire = cacheKey.getExpire();
+		if (expire == null) {
+			return set(key, value);
+		}
+		CompletableFuture<Void> future = setEx(key, value, expire);
+		Duration staleExpire = cacheKey.getStaleExpire();
+		if (staleExpire == null) {
+			return future;
+		}
+		return CompletableFuture.allOf(future, setEx(key + STALE_SUFFIX, value, expire.plus(staleExpire)));
+	}
+
+	/**
+	 * 存放 key value 对到 redis。
+	 */
+	public CompletableFuture<Void> set(String key, Object value) {
+		return write(key, commands -> commands.set(rawKey(key), rawValue(value)), result -> null);
+	}
+
+	/**
+	 * 存放 key value 对到 redis，并将 key 的生存时间设为 timeout。
+	 * 如果 key 已经存在， SETEX 命令将覆写旧值。
+	 */
+	public CompletableFuture<Void> setEx(String key, Object value, Duration timeout) {
+		return write(key, commands -> commands.set(rawKey(key), rawValue(value), SetArgs.Builder.px(timeout.toMillis())), result -> null);
+	}
+
+	/**
+	 * 存放 key value 对到 redis，并将 key 的生存时间设为 seconds (以秒为单位)。
+	 * 如果 key 已经存在， SETEX 命令将覆写旧值。
+	 */
+	public CompletableFuture<Void> setEx(String key, Object value, Long seconds) {
+		return write(key, commands -> commands.setex(rawKey(key), seconds, rawValue(value)), result -> null);
+	}
+
+	/**
+	 * 返回 key 所关联的 value 值
+	 * 如果 key 不存在那么返回特殊值 nil 。
+	 */
+	public <T> CompletableFuture<T> get(String key) {
+		return execute(commands -> commands.get(rawKey(key)), bytes -> (T) unwrap(deserializeValue(bytes)));
+	}
+
+	/**
+	 * 返回 key 所关联的 value 值
+	 * 如果 key 不存在那么返回特殊值 nil 。
+	 */
+	public <T> CompletableFuture<T> get(CacheKey cacheKey) {
+		return get(cacheKey.getKey());
+	}
+
+	/**
+	 * 获取cache 为 null 时在 executor 上执行加载器，然后设置缓存，加载器返回 null 时按 nullExpire 缓存空值
+	 *
+	 * @param cacheKey cacheKey
+	 * @param loader   cache loader
+	 * @param <T>      泛型
+	 * @return 结果
+	 */
+	public <T> CompletableFuture<T> get(CacheKey cacheKey, Supplier<T> loader) {
+		String key = cacheKey.getKey();
+		return execute(commands -> commands.get(rawKey(key)), this::deserializeValue).thenCompose(value -> {
+			if (value != null) {
+				return CompletableFuture.completedFuture((T) unwrap(value));
+			}
+			long start = System.currentTimeMillis();
+			T loaded = loader.get();
+			if (loaded != null) {
+				return set(cacheKey, loaded, System.currentTimeMillis() - start).thenApply(result -> loaded);
+			}
+			// 缓存空值，防止缓存穿透
+			Duration nullExpire = cacheKey.getNullExpire();
+			if (nullExpire == null) {
+				return CompletableFuture.completedFuture(null);
+			}
+			return setEx(key, NullValue.INSTANCE, nullExpire).thenApply(result -> null);
+		});
+	}
+
+	/**
+	 * 将给定 key 的值设为 value ，并返回 key 的旧值(old value)。
+	 * 当 key 存在但不是字符串类型时，返回一个错误。
+	 */
+	public <T> CompletableFuture<T> getSet(String key, Object value) {
+		return write(key, commands -> commands.getset(rawKey(key), rawValue(value)), bytes -> (T) unwrap(deserializeValue(bytes)));
+	}
+
+	/**
+	 * 删除给定的一个 key
+	 * 不存在的 key 会被忽略。
+	 */
+	public CompletableFuture<Boolean> del(String key) {
+		return write(key, commands -> commands.del(rawKey(key)), count -> count != null && count > 0);
+	}
+
+	/**
+	 * 删除给定的一个 key
+	 * 不存在的 key 会被忽略。
+	 */
+	public CompletableFuture<Boolean> del(CacheKey key) {
+		return del(key.getKey());
+	}
+
+	/**
+	 * 删除给定的多个 key
+	 * 不存在的 key 会被忽略。
+	 */
+	public CompletableFuture<Long> del(String... keys) {
+		return del(Arrays.asList(keys));
+	}
+
+	/**
+	 * 删除给定的多个 key
+	 * 不存在的 key 会被忽略。
+	 */
+	public CompletableFuture<Long> del(Collection<String> keys) {
+		return execute(commands -> commands.del(rawKeys(keys)), count -> {
+			keys.forEach(this::nearInvalidate);
+			return count;
+		});
+	}
+
+	/**
+	 * 查找所有符合给定模式 pattern 的 key 。
+	 * KEYS 会阻塞 redis，key 较多时请使用 CodeDreamPlusRedis.scan
+	 */
+	public CompletableFuture<Set<String>> keys(String pattern) {
+		return execute(commands -> commands.keys(keySerializer.serialize(pattern)), rawKeys -> {
+			Set<String> keys = new LinkedHashSet<>(rawKeys.size());
+			rawKeys.forEach(rawKey -> keys.add((String) keySerializer.deserialize(rawKey)));
+			return keys;
+		});
+	}
+
+	/**
+	 * 同时设置一个或多个 key-value 对。
+	 * 如果某个给定 key 已经存在，那么 MSET 会用新值覆盖原来的旧值。
+	 * MSET 是一个原子性(atomic)操作，所有给定 key 都会在同一时间内被设置。
+	 */
+	public CompletableFuture<Void> mSet(Map<String, Object> keysValues) {
+		Map<byte[], byte[]> rawMap = new LinkedHashMap<>(keysValues.size());
+		keysValues.forEach((key, value) -> rawMap.put(rawKey(key), rawValue(value)));
+		return execute(commands -> commands.mset(rawMap), result -> {
+			keysValues.keySet().forEach(this::nearInvalidate);
+			return null;
+		});
+	}
+
+	/**
+	 * 返回所有(一个或多个)给定 key 的值。
+	 * 如果给定的 key 里面，有某个 key 不存在，那么这个 key 返回特殊值 nil 。
+	 */
+	public CompletableFuture<List<Object>> mGet(String... keys) {
+		return mGet(Arrays.asList(keys));
+	}
+
+	/**
+	 * 返回所有(一个或多个)给定 key 的值。
+	 * 如果给定的 key 里面，有某个 key 不存在，那么这个 key 返回特殊值 nil 。
+	 */
+	public CompletableFuture<List<Object>> mGet(Collection<String> keys) {
+		return execute(commands -> commands.mget(rawKeys(keys)), this::deserializeKeyValues);
+	}
+
+	/**
+	 * 将 key 中储存的数字值减一。
+	 * 如果 key 不存在，那么 key 的值会先被初始化为 0 ，然后再执行 DECR 操作。
+	 */
+	public CompletableFuture<Long> decr(String key) {
+		return execute(commands -> commands.decr(rawKey(key)), Function.identity());
+	}
+
+	/**
+	 * 将 key 所储存的值减去减量 decrement 。
+	 * 如果 key 不存在，那么 key 的值会先被初始化为 0 ，然后再执行 DECRBY 操作。
+	 */
+	public CompletableFuture<Long> decrBy(String key, long longValue) {
+		return execute(commands -> commands.decrby(rawKey(key), longValue), Function.identity());
+	}
+
+	/**
+	 * 将 key 中储存的数字值增一。
+	 * 如果 key 不存在，那么 key 的值会先被初始化为 0 ，然后再执行 INCR 操作。
+	 */
+	public CompletableFuture<Long> incr(String key) {
+		return execute(commands -> commands.incr(rawKey(key)), Function.identity());
+	}
+
+	/**
+	 * 将 key 所储存的值加上增量 increment 。
+	 * 如果 key 不存在，那么 key 的值会先被初始化为 0 ，然后再执行 INCRBY 命令。
+	 */
+	public CompletableFuture<Long> incrBy(String key, long longValue) {
+		return execute(commands -> commands.incrby(rawKey(key), longValue), Function.identity());
+	}
+
+	/**
+	 * 获取记数器的值
+	 */
+	public CompletableFuture<Long> getCounter(String key) {
+		return execute(commands -> commands.get(rawKey(key)), bytes -> {
+			// incr 写入的 redis 原生数字直接解析，不经过序列化
+			Number number = bytes == null || bytes.length == 0 ? null : PrimitiveRedisSerializer.parseNumber(bytes);
+			if (number != null) {
+				return number.longValue();
+			}
+			return Long.valueOf(String.valueOf(deserializeValue(bytes)));
+		});
+	}
+
+	/**
+	 * 检查给定 key 是否存在。
+	 */
+	public CompletableFuture<Boolean> exists(String key) {
+		return execute(commands -> commands.exists(rawKey(key)), count -> count != null && count > 0);
+	}
+
+	/**
+	 * 从当前数据库中随机返回(不删除)一个 key 。
+	 */
+	public CompletableFuture<String> randomKey() {
+		return execute(RedisClusterAsyncCommands::randomkey, rawKey -> rawKey == null ? null : (String) keySerializer.deserialize(rawKey));
+	}
+
+	/**
+	 * 将 key 改名为 newkey 。
+	 * 当 key 和 newkey 相同，或者 key 不存在时，返回一个错误。
+	 * 当 newkey 已经存在时， RENAME 命令将覆盖旧值。
+	 */
+	public CompletableFuture<Void> rename(String oldkey, String newkey) {
+		return execute(commands -> commands.rename(rawKey(oldkey), rawKey(newkey)), result -> {
+			nearInvalidate(oldkey);
+			nearInvalidate(newkey);
+			return null;
+		});
+	}
+
+	/**
+	 * 将当前数据库的 key 移动到给定的数据库 db 当中，集群模式不支持。
+	 */
+	public CompletableFuture<Boolean> move(String key, int dbIndex) {
+		return write(key, commands -> commands.move(rawKey(key), dbIndex), Function.identity());
+	}
+
+	/**
+	 * 为给定 key 设置生存时间，当 key 过期时(生存时间为 0 )，它会被自动删除。
+	 */
+	public CompletableFuture<Boolean> expire(String key, long seconds) {
+		return execute(commands -> commands.expire(rawKey(key), seconds), Function.identity());
+	}
+
+	/**
+	 * 为给定 key 设置生存时间，当 key 过期时(生存时间为 0 )，它会被自动删除。
+	 */
+	public CompletableFuture<Boolean> expire(String key, Duration timeout) {
+		return pexpire(key, timeout.toMillis());
+	}
+
+	/**
+	 * EXPIREAT 的作用和 EXPIRE 类似，都用于为 key 设置生存时间。不同在于 EXPIREAT 命令接受的时间参数是 UNIX 时间戳(unix timestamp)。
+	 */
+	public CompletableFuture<Boolean> expireAt(String key, Date date) {
+		return execute(commands -> commands.expireat(rawKey(key), date), Function.identity());
+	}
+
+	/**
+	 * EXPIREAT 的作用和 EXPIRE 类似，都用于为 key 设置生存时间。不同在于 EXPIREAT 命令接受的时间参数是 UNIX 时间戳(unix timestamp)。
+	 */
+	public CompletableFuture<Boolean> expireAt(String key, long unixTime) {
+		return execute(commands -> commands.expireat(rawKey(key), unixTime), Function.identity());
+	}
+
+	/**
+	 * 这个命令和 EXPIRE 命令的作用类似，但是它以毫秒为单位设置 key 的生存时间，而不像 EXPIRE 命令那样，以秒为单位。
+	 */
+	public CompletableFuture<Boolean> pexpire(String key, long milliseconds) {
+		return execute(commands -> commands.pexpire(rawKey(key), milliseconds), Function.identity());
+	}
+
+	/**
+	 * 移除给定 key 的生存时间，将这个 key 从『易失的』(带生存时间 key )转换成『持久的』(一个不带生存时间、永不过期的 key )。
+	 */
+	public CompletableFuture<Boolean> persist(String key) {
+		return execute(commands -> commands.persist(rawKey(key)), Function.identity());
+	}
+
+	/**
+	 * 返回 key 所储存的值的类型。
+	 */
+	public CompletableFuture<String> type(String key) {
+		return execute(commands -> commands.type(rawKey(key)), Function.identity());
+	}
+
+	/**
+	 * 以秒为单位，返回给定 key 的剩余生存时间(TTL, time to live)。
+	 */
+	public CompletableFuture<Long> ttl(String key) {
+		return execute(commands -> commands.ttl(rawKey(key)), Function.identity());
+	}
+
+	/**
+	 * 这个命令类似于 TTL 命令，但它以毫秒为单位返回 key 的剩余生存时间，而不是像 TTL 命令那样，以秒为单位。
+	 */
+	public CompletableFuture<Long> pttl(String key) {
+		return execute(commands -> commands.pttl(rawKey(key)), Function.identity());
+	}
+
+	/**
+	 * 将哈希表 key 中的域 field 的值设为 value 。
+	 * 如果 key 不存在，一个新的哈希表被创建并进行 HSET 操作。
+	 * 如果域 field 已经存在于哈希表中，旧值将被覆盖。
+	 */
+	public CompletableFuture<Void> hSet(String key, Object field, Object value) {
+		return execute(commands -> commands.hset(rawKey(key), rawHashKey(field), rawHashValue(value)), result -> null);
+	}
+
+	/**
+	 * 同时将多个 field-value (域-值)对设置到哈希表 key 中。
+	 * 此命令会覆盖哈希表中已存在的域。
+	 * 如果 key 不存在，一个空哈希表被创建并执行 HMSET 操作。
+	 */
+	public CompletableFuture<Void> hMset(String key, Map<Object, Object> hash) {
+		Map<byte[], byte[]> rawHash = new LinkedHashMap<>(hash.size());
+		hash.forEach((field, value) -> rawHash.put(rawHashKey(field), rawHashValue(value)));
+		return execute(commands -> commands.hmset(rawKey(key), rawHash), result -> null);
+	}
+
+	/**
+	 * 返回哈希表 key 中给定域 field 的值。
+	 */
+	public <T> CompletableFuture<T> hGet(String key, Object field) {
+		return execute(commands -> commands.hget(rawKey(key), rawHashKey(field)), bytes -> (T) deserializeHashValue(bytes));
+	}
+
+	/**
+	 * 返回哈希表 key 中，一个或多个给定域的值。
+	 * 如果给定的域不存在于哈希表，那么返回一个 nil 值。
+	 */
+	public CompletableFuture<List<Object>> hmGet(String key, Object... fields) {
+		return hmGet(key, Arrays.asList(fields));
+	}
+
+	/**
+	 * 返回哈希表 key 中，一个或多个给定域的值。
+	 * 如果给定的域不存在于哈希表，那么返回一个 nil 值。
+	 */
+	public CompletableFuture<List<Object>> hmGet(String key, Collection<Object> hashKeys) {
+		byte[][] rawHashKeys = hashKeys.stream().map(this::rawHashKey).toArray(byte[][]::new);
+		return execute(commands -> commands.hmget(rawKey(key), rawHashKeys), keyValues -> {
+			List<Object> values = new ArrayList<>(keyValues.size());
+			for (KeyValue<byte[], byte[]> keyValue : keyValues) {
+				values.add(deserializeHashValue(keyValue.getValueOrElse(null)));
+			}
+			return values;
+		});
+	}
+
+	/**
+	 * 删除哈希表 key 中的一个或多个指定域，不存在的域将被忽略。
+	 */
+	public CompletableFuture<Long> hDel(String key, Object... fields) {
+		byte[][] rawFields = Arrays.stream(fields).map(this::rawHashKey).toArray(byte[][]::new);
+		return execute(commands -> commands.hdel(rawKey(key), rawFields), Function.identity());
+	}
+
+	/**
+	 * 查看哈希表 key 中，给定域 field 是否存在。
+	 */
+	public CompletableFuture<Boolean> hExists(String key, Object field) {
+		return execute(commands -> commands.hexists(rawKey(key), rawHashKey(field)), Function.identity());
+	}
+
+	/**
+	 * 返回哈希表 key 中，所有的域和值。
+	 * 在返回值里，紧跟每个域名(field name)之后是域的值(value)，所以返回值的长度是哈希表大小的两倍。
+	 */
+	public CompletableFuture<Map<Object, Object>> hGetAll(String key) {
+		return execute(commands -> commands.hgetall(rawKey(key)), rawHash -> {
+			Map<Object, Object> hash = new LinkedHashMap<>(rawHash.size());
+			rawHash.forEach((field, value) -> hash.put(hashKeySerializer.deserialize(field), deserializeHashValue(value)));
+			return hash;
+		});
+	}
+
+	/**
+	 * 返回哈希表 key 中所有域的值。
+	 */
+	public CompletableFuture<List<Object>> hVals(String key) {
+		return execute(commands -> commands.hvals(rawKey(key)), values -> {
+			List<Object> hashValues = deserializeValues(values, new ArrayList<>(values.size()), hashValueSerializer);
+			hashValues.replaceAll(CodeDreamPlusAsyncRedis::unwrap);
+			return hashValues;
+		});
+	}
+
+	/**
+	 * 返回哈希表 key 中的所有域。
+	 */
+	public CompletableFuture<Set<Object>> hKeys(String key) {
+		return execute(commands -> commands.hkeys(rawKey(key)), fields -> deserializeValues(fields, new LinkedHashSet<>(fields.size()), hashKeySerializer));
+	}
+
+	/**
+	 * 返回哈希表 key 中域的数量。
+	 */
+	public CompletableFuture<Long> hLen(String key) {
+		return execute(commands -> commands.hlen(rawKey(key)), Function.identity());
+	}
+
+	/**
+	 * 为哈希表 key 中的域 field 的值加上增量 increment 。
+	 * 增量也可以为负数，相当于对给定域进行减法操作。
+	 */
+	public CompletableFuture<Long> hIncrBy(String key, Object field, long value) {
+		return execute(commands -> commands.hincrby(rawKey(key), rawHashKey(field), value), Function.identity());
+	}
+
+	/**
+	 * 为哈希表 key 中的域 field 加上浮点数增量 increment 。
+	 */
+	public CompletableFuture<Double> hIncrByFloat(String key, Object field, double value) {
+		return execute(commands -> commands.hincrbyfloat(rawKey(key), rawHashKey(field), value), Function.identity());
+	}
+
+	/**
+	 * 返回列表 key 中，下标为 index 的元素。
+	 */
+	public <T> CompletableFuture<T> lIndex(String key, long index) {
+		return execute(commands -> commands.lindex(rawKey(key), index), bytes -> (T) deserializeValue(bytes));
+	}
+
+	/**
+	 * 返回列表 key 的长度。
+	 */
+	public CompletableFuture<Long> lLen(String key) {
+		return execute(commands -> commands.llen(rawKey(key)), Function.identity());
+	}
+
+	/**
+	 * 移除并返回列表 key 的头元素。
+	 */
+	public <T> CompletableFuture<T> lPop(String key) {
+		return execute(commands -> commands.lpop(rawKey(key)), bytes -> (T) deserializeValue(bytes));
+	}
+
+	/**
+	 * 将一个或多个值 value 插入到列表 key 的表头
+	 */
+	public CompletableFuture<Long> lPush(String key, Object... values) {
+		return execute(commands -> commands.lpush(rawKey(key), rawValues(values)), Function.identity());
+	}
+
+	/**
+	 * 将列表 key 下标为 index 的元素的值设置为 value 。
+	 */
+	public CompletableFuture<Void> lSet(String key, long index, Object value) {
+		return execute(commands -> commands.lset(rawKey(key), index, rawValue(value)), result -> null);
+	}
+
+	/**
+	 * 根据参数 count 的值，移除列表中与参数 value 相等的元素。
+	 */
+	public CompletableFuture<Long> lRem(String key, long count, Object value) {
+		return execute(commands -> commands.lrem(rawKey(key), count, rawValue(value)), Function.identity());
+	}
+
+	/**
+	 * 返回列表 key 中指定区间内的元素，区间以偏移量 start 和 stop 指定。
+	 */
+	public CompletableFuture<List<Object>> lRange(String key, long start, long end) {
+		return execute(commands -> commands.lrange(rawKey(key), start, end), values -> deserializeValues(values, new ArrayList<>(values.size()), valueSerializer));
+	}
+
+	/**
+	 * 对一个列表进行修剪(trim)，就是说，让列表只保留指定区间内的元素，不在指定区间之内的元素都将被删除。
+	 */
+	public CompletableFuture<Void> lTrim(String key, long start, long end) {
+		return execute(commands -> commands.ltrim(rawKey(key), start, end), result -> null);
+	}
+
+	/**
+	 * 移除并返回列表 key 的尾元素。
+	 */
+	public <T> CompletableFuture<T> rPop(String key) {
+		return execute(commands -> commands.rpop(rawKey(key)), bytes -> (T) deserializeValue(bytes));
+	}
+
+	/**
+	 * 将一个或多个值 value 插入到列表 key 的表尾(最右边)。
+	 */
+	public CompletableFuture<Long> rPush(String key, Object... values) {
+		return execute(commands -> commands.rpush(rawKey(key), rawValues(values)), Function.identity());
+	}
+
+	/**
+	 * 将列表 source 中的最后一个元素(尾元素)弹出，并返回给客户端，同时插入到列表 destination 的头部。
+	 */
+	public <T> CompletableFuture<T> rPopLPush(String srcKey, String dstKey) {
+		return execute(commands -> commands.rpoplpush(rawKey(srcKey), rawKey(dstKey)), bytes -> (T) deserializeValue(bytes));
+	}
+
+	/**
+	 * 将一个或多个 member 元素加入到集合 key 当中，已经存在于集合的 member 元素将被忽略。
+	 */
+	public CompletableFuture<Long> sAdd(String key, Object... members) {
+		return execute(commands -> commands.sadd(rawKey(key), rawValues(members)), Function.identity());
+	}
+
+	/**
+	 * 移除并返回集合中的一个随机元素。
+	 */
+	public <T> CompletableFuture<T> sPop(String key) {
+		return execute(commands -> commands.spop(rawKey(key)), bytes -> (T) deserializeValue(bytes));
+	}
+
+	/**
+	 * 返回集合 key 中的所有成员。
+	 */
+	public CompletableFuture<Set<Object>> sMembers(String key) {
+		return execute(commands -> commands.smembers(rawKey(key)), this::deserializeSet);
+	}
+
+	/**
+	 * 判断 member 元素是否集合 key 的成员。
+	 */
+	public CompletableFuture<Boolean> sIsMember(String key, Object member) {
+		return execute(commands -> commands.sismember(rawKey(key), rawValue(member)), Function.identity());
+	}
+
+	/**
+	 * 返回多个集合的交集，多个集合由 keys 指定
+	 */
+	public CompletableFuture<Set<Object>> sInter(String key, String otherKey) {
+		return sInter(key, Collections.singletonList(otherKey));
+	}
+
+	/**
+	 * 返回多个集合的交集，多个集合由 keys 指定
+	 */
+	public CompletableFuture<Set<Object>> sInter(String key, Collection<String> otherKeys) {
+		return execute(commands -> commands.sinter(rawKeys(key, otherKeys)), this::deserializeSet);
+	}
+
+	/**
+	 * 返回集合中的一个随机元素。
+	 */
+	public <T> CompletableFuture<T> sRandMember(String key) {
+		return execute(commands -> commands.srandmember(rawKey(key)), bytes -> (T) deserializeValue(bytes));
+	}
+
+	/**
+	 * 返回集合中的 count 个随机元素。
+	 */
+	public CompletableFuture<List<Object>> sRandMember(String key, int count) {
+		return execute(commands -> commands.srandmember(rawKey(key), count), values -> deserializeValues(values, new ArrayList<>(values.size()), valueSerializer));
+	}
+
+	/**
+	 * 移除集合 key 中的一个或多个 member 元素，不存在的 member 元素会被忽略。
+	 */
+	public CompletableFuture<Long> sRem(String key, Object... members) {
+		return execute(commands -> commands.srem(rawKey(key), rawValues(members)), Function.identity());
+	}
+
+	/**
+	 * 返回多个集合的并集，多个集合由 keys 指定
+	 */
+	public CompletableFuture<Set<Object>> sUnion(String key, String otherKey) {
+		return sUnion(key, Collections.singletonList(otherKey));
+	}
+
+	/**
+	 * 返回多个集合的并集，多个集合由 keys 指定
+	 */
+	public CompletableFuture<Set<Object>> sUnion(String key, Collection<String> otherKeys) {
+		return execute(commands -> commands.sunion(rawKeys(key, otherKeys)), this::deserializeSet);
+	}
+
+	/**
+	 * 返回一个集合的全部成员，该集合是所有给定集合之间的差集。
+	 */
+	public CompletableFuture<Set<Object>> sDiff(String key, String otherKey) {
+		return sDiff(key, Collections.singletonList(otherKey));
+	}
+
+	/**
+	 * 返回一个集合的全部成员，该集合是所有给定集合之间的差集。
+	 */
+	public CompletableFuture<Set<Object>> sDiff(String key, Collection<String> otherKeys) {
+		return execute(commands -> commands.sdiff(rawKeys(key, otherKeys)), this::deserializeSet);
+	}
+
+	/**
+	 * 将一个 member 元素及其 score 值加入到有序集 key 当中。
+	 */
+	public CompletableFuture<Boolean> zAdd(String key, Object member, double score) {
+		return execute(commands -> commands.zadd(rawKey(key), score, rawValue(member)), count -> count != null && count > 0);
+	}
+
+	/**
+	 * 将一个或多个 member 元素及其 score 值加入到有序集 key 当中。
+	 */
+	public CompletableFuture<Long> zAdd(String key, Map<Object, Double> scoreMembers) {
+		// score 和 member 交替排列，避免创建泛型数组
+		Object[] scoresAndValues = new Object[scoreMembers.size() * 2];
+		int i = 0;
+		for (Map.Entry<Object, Double> entry : scoreMembers.entrySet()) {
+			scoresAndValues[i++] = entry.getValue();
+			scoresAndValues[i++] = rawValue(entry.getKey());
+		}
+		return execute(commands -> commands.zadd(rawKey(key), scoresAndValues), Function.identity());
+	}
+
+	/**
+	 * 返回有序集 key 的基数。
+	 */
+	public CompletableFuture<Long> zCard(String key) {
+		return execute(commands -> commands.zcard(rawKey(key)), Function.identity());
+	}
+
+	/**
+	 * 返回有序集 key 中， score 值在 min 和 max 之间(默认包括 score 值等于 min 或 max )的成员的数量。
+	 */
+	public CompletableFuture<Long> zCount(String key, double min, double max) {
+		return execute(commands -> commands.zcount(rawKey(key), Range.create(min, max)), Function.identity());
+	}
+
+	/**
+	 * 为有序集 key 的成员 member 的 score 值加上增量 increment 。
+	 */
+	public CompletableFuture<Double> zIncrBy(String key, Object member, double score) {
+		return execute(commands -> commands.zincrby(rawKey(key), score, rawValue(member)), Function.identity());
+	}
+
+	/**
+	 * 返回有序集 key 中，指定区间内的成员。
+	 * 其中成员的位置按 score 值递增(从小到大)来排序。
+	 */
+	public CompletableFuture<Set<Object>> zRange(String key, long start, long end) {
+		return execute(commands -> commands.zrange(rawKey(key), start, end), this::deserializeSet);
+	}
+
+	/**
+	 * 返回有序集 key 中，指定区间内的成员。
+	 * 其中成员的位置按 score 值递减(从大到小)来排列。
+	 */
+	public CompletableFuture<Set<Object>> zRevrange(String key, long start, long end) {
+		return execute(commands -> commands.zrevrange(rawKey(key), start, end), this::deserializeSet);
+	}
+
+	/**
+	 * 返回有序集 key 中，所有 score 值介于 min 和 max 之间(包括等于 min 或 max )的成员。
+	 * 有序集成员按 score 值递增(从小到大)次序排列。
+	 */
+	public CompletableFuture<Set<Object>> zRangeByScore(String key, double min, double max) {
+		return execute(commands -> commands.zrangebyscore(rawKey(key), Range.create(min, max)), this::deserializeSet);
+	}
+
+	/**
+	 * 返回有序集 key 中成员 member 的排名。其中有序集成员按 score 值递增(从小到大)顺序排列。
+	 */
+	public CompletableFuture<Long> zRank(String key, Object member) {
+		return execute(commands -> commands.zrank(rawKey(key), rawValue(member)), Function.identity());
+	}
+
+	/**
+	 * 返回有序集 key 中成员 member 的排名。其中有序集成员按 score 值递减(从大到小)排序。
+	 */
+	public CompletableFuture<Long> zRevrank(String key, Object member) {
+		return execute(commands -> commands.zrevrank(rawKey(key), rawValue(member)), Function.identity());
+	}
+
+	/**
+	 * 移除有序集 key 中的一个或多个成员，不存在的成员将被忽略。
+	 */
+	public CompletableFuture<Long> zRem(String key, Object... members) {
+		return execute(commands -> commands.zrem(rawKey(key), rawValues(members)), Function.identity());
+	}
+
+	/**
+	 * 返回有序集 key 中，成员 member 的 score 值。
+	 */
+	public CompletableFuture<Double> zScore(String key, Object member) {
+		return execute(commands -> commands.zscore(rawKey(key), rawValue(member)), Function.identity());
+	}
+
+	/**
+	 * 执行写命令，完成后失效本地缓存
+	 */
+	private <R, T> CompletableFuture<T> write(String key,
+											  Function<RedisClusterAsyncCommands<byte[], byte[]>, RedisFuture<R>> command,
+											  Function<R, T> converter) {
+		return execute(command, result -> {
+			nearInvalidate(key);
+			return converter.apply(result);
+		});
+	}
+
+	/**
+	 * 在 Lettuce 异步连接上执行命令，命令完成后释放连接，并在 executor 上转换结果
+	 *
+	 * @param command   命令
+	 * @param converter 结果转换，在 executor 上执行
+	 * @return CompletableFuture
+	 */
+	private <R, T> CompletableFuture<T> execute(Function<RedisClusterAsyncCommands<byte[], byte[]>, RedisFuture<R>> command,
+												Function<R, T> converter) {
+		CompletableFuture<T> result = new CompletableFuture<>();
+		RedisConnection connection = connectionFactory.getConnection();
+		RedisFuture<R> future;
+		try {
+			future = command.apply((RedisClusterAsyncCommands<byte[], byte[]>) connection.getNativeConnection());
+		} catch (RuntimeException e) {
+			connection.close();
+			result.completeExceptionally(translate(e));
+			return result;
+		}
+		future.whenComplete((value, error) -> {
+			// 共享连接时 close 不会关闭底层连接，独占连接时归还连接池
+			connection.close();
+			try {
+				executor.execute(() -> {
+					if (error != null) {
+						result.completeExceptionally(translate(error));
+						return;
+					}
+					try {
+						result.complete(converter.apply(value));
+					} catch (Throwable e) {
+						result.completeExceptionally(e);
+					}
+				});
+			} catch (Throwable e) {
+				result.completeExceptionally(e);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * 将 Lettuce 异常转换为 spring 的 DataAccessException
+	 */
+	private static Throwable translate(Throwable error) {
+		Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+		if (cause instanceof Exception) {
+			Throwable translated = LettuceConverters.exceptionConverter().convert((Exception) cause);
+			return translated != null ? translated : cause;
+		}
+		return cause;
+	}
+
+	private byte[] rawKey(String key) {
+		return keySerializer.serialize(key);
+	}
+
+	private byte[][] rawKeys(Collection<String> keys) {
+		return keys.stream().map(this::rawKey).toArray(byte[][]::new);
+	}
+
+	private byte[][] rawKeys(String key, Collection<String> otherKeys) {
+		byte[][] rawKeys = new byte[otherKeys.size() + 1][];
+		rawKeys[0] = rawKey(key);
+		int i = 1;
+		for (String otherKey : otherKeys) {
+			rawKeys[i++] = rawKey(otherKey);
+		}
+		return rawKeys;
+	}
+
+	private byte[] rawValue(Object value) {
+		return valueSerializer.serialize(value);
+	}
+
+	private byte[][] rawValues(Object... values) {
+		byte[][] rawValues = new byte[values.length][];
+		for (int i = 0; i < values.length; i++) {
+			rawValues[i] = rawValue(values[i]);
+		}
+		return rawValues;
+	}
+
+	private byte[] rawHashKey(Object field) {
+		return hashKeySerializer.serialize(field);
+	}
+
+	private byte[] rawHashValue(Object value) {
+		return hashValueSerializer.serialize(value);
+	}
+
+	@Nullable
+	private Object deserializeValue(@Nullable byte[] bytes) {
+		return bytes == null ? null : valueSerializer.deserialize(bytes);
+	}
+
+	/**
+	 * 反序列化哈希表的值，并还原空值和提前刷新的包装值
+	 */
+	@Nullable
+	private Object deserializeHashValue(@Nullable byte[] bytes) {
+		return bytes == null ? null : unwrap(hashValueSerializer.deserialize(bytes));
+	}
+
+	private Set<Object> deserializeSet(Collection<byte[]> values) {
+		return deserializeValues(values, new LinkedHashSet<>(values.size()), valueSerializer);
+	}
+
+	private <C extends Collection<Object>> C deserializeValues(Collection<byte[]> values, C target, RedisSerializer<Object> serializer) {
+		for (byte[] value : values) {
+			target.add(value == null ? null : serializer.deserialize(value));
+		}
+		return target;
+	}
+
+	private List<Object> deserializeKeyValues(List<KeyValue<byte[], byte[]>> keyValues) {
+		List<Object> values = new ArrayList<>(keyValues.size());
+		for (KeyValue<byte[], byte[]> keyValue : keyValues) {
+			values.add(unwrap(deserializeValue(keyValue.getValueOrElse(null))));
+		}
+		return values;
+	}
+
+	/**
+	 * 缓存的空值转换为 null，提前刷新的包装值取出原值
+	 */
+	@Nullable
+	private static Object unwrap(@Nullable Object value) {
+		if (value instanceof NullValue) {
+			return null;
+		}
+		return value instanceof CacheValue ? ((CacheValue) value).getValue() : value;
+	}
+
+	private void nearInvalidate(String key) {
+		if (nearCache != null && nearCache.shouldInvalidate(key)) {
+			nearCache.invalidate(key);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (executor instanceof ExecutorService) {
+			((ExecutorService) executor).shutdown();
+		}
+	}
+}
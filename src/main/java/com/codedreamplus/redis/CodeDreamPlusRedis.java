@@ -1,22 +1,60 @@
 package com.codedreamplus.redis;
 
-import com.codedreamplus.redis.cache.CacheKey;
+import com.codedreamplus.redis.bloom.RedisBloomFilter;
+import com.codedreamplus.redis.cache.*;
+import com.codedreamplus.redis.hotkey.HotKeyDetector;
+import com.codedreamplus.redis.lock.RedisLeaseLock;
+import com.codedreamplus.redis.script.RedisScriptRegistry;
+import com.codedreamplus.redis.serializer.PrimitiveRedisSerializer;
+import com.codedreamplus.redis.serializer.TypedRedisSerializer;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.connection.RedisClusterConnection;
+import org.springframework.data.redis.connection.RedisClusterNode;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisStringCommands;
 import org.springframework.data.redis.core.*;
+import org.springframework.data.redis.core.types.Expiration;
+import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.lang.Nullable;
 import org.springframework.util.Assert;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+@Slf4j
 @Getter
 @RequiredArgsConstructor
 @SuppressWarnings("unchecked")
-public class CodeDreamPlusRedis implements SmartInitializingSingleton {
+public class CodeDreamPlusRedis implements SmartInitializingSingleton, DisposableBean {
+	/**
+	 * 分布式加载时，正在加载的 key 后缀
+	 */
+	private static final String LOADING_SUFFIX = ":loading";
+	/**
+	 * 旧值 key 后缀
+	 */
+	private static final String STALE_SUFFIX = ":stale";
+	/**
+	 * 等待其他节点加载时的轮询间隔，毫秒
+	 */
+	private static final long LOADING_POLL_INTERVAL = 50L;
 
 	private final RedisTemplate<String, Object> redisTemplate;
 	private ValueOperations<String, Object> valueOps;
@@ -24,14 +62,77 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	private ListOperations<String, Object> listOps;
 	private SetOperations<String, Object> setOps;
 	private ZSetOperations<String, Object> zSetOps;
+	/**
+	 * 本地一级缓存，为 null 时不开启
+	 */
+	@Setter
+	@Nullable
+	private NearCache nearCache;
+	/**
+	 * 加载合并，为 null 时每个未命中的线程都会执行加载器
+	 */
+	@Setter
+	@Nullable
+	private SingleFlight singleFlight;
+	/**
+	 * 提前刷新线程池，为 null 时不开启提前刷新
+	 */
+	@Setter
+	@Nullable
+	private ExecutorService refreshExecutor;
+	/**
+	 * 热点 key 探测，为 null 时不开启
+	 */
+	@Setter
+	@Nullable
+	private HotKeyDetector hotKeyDetector;
+	/**
+	 * 正在提前刷新的 key
+	 */
+	private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+	/**
+	 * 每次 pipeline 的最大命令数
+	 */
+	@Setter
+	private int pipelineBatchSize = 1000;
+	/**
+	 * 执行 KEYS 前检查 DBSIZE，超过该值时告警或拒绝，小于等于 0 时不检查
+	 */
+	@Setter
+	private long keysGuardSize = 0L;
+	/**
+	 * 超过 keysGuardSize 时是否拒绝执行 KEYS
+	 */
+	@Setter
+	private boolean keysGuardReject = false;
+	/**
+	 * lua 脚本注册表，使用容器中共享的 RedisScriptRegistry
+	 */
+	@Setter
+	private RedisScriptRegistry scriptRegistry;
+	private RedisLeaseLock leaseLock;
 
 	/**
-	 * 设置缓存
+	 * 设置缓存，开启提前刷新时加载耗时记为 0，RefreshPolicy.xFetch 对这类值按固定窗口刷新
 	 *
 	 * @param cacheKey 缓存key
 	 * @param value    缓存value
 	 */
 	public void set(CacheKey cacheKey, Object value) {
+		set(cacheKey, value, 0L);
+	}
+
+	/**
+	 * 设置缓存，开启提前刷新时携带写入时间和加载耗时
+	 *
+	 * @param cacheKey 缓存key
+	 * @param value    缓存value
+	 * @param loadCost 加载耗时，毫秒
+	 */
+	private void set(CacheKey cacheKey, Object value, long loadCost) {
+		if (cacheKey.getRefreshPolicy() != null) {
+			value = new CacheValue(value, System.currentTimeMillis(), loadCost);
+		}
 		String key = cacheKey.getKey();
 		Duration expire = cacheKey.getExpire();
 		if (expire == null) {
@@ -39,6 +140,30 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 		} else {
 			setEx(key, value, expire);
 		}
+		Duration staleExpire = cacheKey.getStaleExpire();
+		if (expire != null && staleExpire != null) {
+			valueOps.set(key + STALE_SUFFIX, value, expire.plus(staleExpire));
+		}
+	}
+
+	/**
+	 * 添加写入缓存的命令，与 set(CacheKey, Object) 的写入方式一致
+	 */
+	private void batchSet(RedisBatch batch, CacheKey cacheKey, Object value, long loadCost) {
+		if (cacheKey.getRefreshPolicy() != null) {
+			value = new CacheValue(value, System.currentTimeMillis(), loadCost);
+		}
+		String key = cacheKey.getKey();
+		Duration expire = cacheKey.getExpire();
+		if (expire == null) {
+			batch.set(key, value);
+		} else {
+			batch.setEx(key, value, expire);
+		}
+		Duration staleExpire = cacheKey.getStaleExpire();
+		if (expire != null && staleExpire != null) {
+			batch.setEx(key + STALE_SUFFIX, value, expire.plus(staleExpire));
+		}
 	}
 
 	/**
@@ -46,6 +171,7 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 */
 	public void set(String key, Object value) {
 		valueOps.set(key, value);
+		nearInvalidate(key);
 	}
 
 	/**
@@ -54,6 +180,7 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 */
 	public void setEx(String key, Object value, Duration timeout) {
 		valueOps.set(key, value, timeout);
+		nearInvalidate(key);
 	}
 
 	/**
@@ -62,6 +189,30 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 */
 	public void setEx(String key, Object value, Long seconds) {
 		valueOps.set(key, value, seconds, TimeUnit.SECONDS);
+		nearInvalidate(key);
+	}
+
+	/**
+	 * 按 value 的实际类型存放到 redis，ProtoStuff 序列化时不写入类型信息，体积更小，
+	 * 只能通过 get(String, Class) 读取。
+	 */
+	public void setTyped(String key, Object value) {
+		byte[] rawKey = rawKey(key);
+		byte[] rawValue = TypedRedisSerializer.typedSerialize(redisTemplate.getValueSerializer(), value);
+		redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.set(rawKey, rawValue));
+		nearInvalidate(key);
+	}
+
+	/**
+	 * 按 value 的实际类型存放到 redis，并将 key 的生存时间设为 timeout，
+	 * 只能通过 get(String, Class) 读取。
+	 */
+	public void setExTyped(String key, Object value, Duration timeout) {
+		byte[] rawKey = rawKey(key);
+		byte[] rawValue = TypedRedisSerializer.typedSerialize(redisTemplate.getValueSerializer(), value);
+		redisTemplate.execute((RedisCallback<Boolean>) connection ->
+			connection.set(rawKey, rawValue, Expiration.from(timeout.toMillis(), TimeUnit.MILLISECONDS), RedisStringCommands.SetOption.UPSERT));
+		nearInvalidate(key);
 	}
 
 	/**
@@ -70,7 +221,40 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 */
 	@Nullable
 	public <T> T get(String key) {
-		return (T) valueOps.get(key);
+		return (T) unwrap(getRaw(key));
+	}
+
+	/**
+	 * 返回 key 所关联的 value 值，直接解码为目标类型，不经过多态解码
+	 * 如果 key 不存在那么返回 null 。不适用于开启了提前刷新（RefreshPolicy）的缓存。
+	 * 开启了本地缓存的 key 同样按目标类型解码后写入本地缓存，可以读取 setTyped 写入的值。
+	 *
+	 * @param key  key
+	 * @param type 目标类型
+	 * @param <T>  泛型
+	 * @return 结果
+	 */
+	@Nullable
+	public <T> T get(String key, Class<T> type) {
+		recordAccess(key);
+		if (nearCache != null && nearCache.isEnabled(key)) {
+			return type.cast(unwrap(nearCache.get(key, () -> nearLoad(key, type), null)));
+		}
+		byte[] rawKey = rawKey(key);
+		byte[] bytes = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(rawKey));
+		return TypedRedisSerializer.typedDeserialize(redisTemplate.getValueSerializer(), bytes, type);
+	}
+
+	/**
+	 * 读取缓存，不处理空值
+	 */
+	@Nullable
+	private Object getRaw(String key) {
+		recordAccess(key);
+		if (nearCache != null && nearCache.isEnabled(key)) {
+			return nearCache.get(key, () -> nearLoad(key, null), null);
+		}
+		return valueOps.get(key);
 	}
 
 	/**
@@ -83,16 +267,17 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 */
 	@Nullable
 	public <T> T get(String key, Supplier<T> loader) {
-		T value = this.get(key);
+		Object value = getRaw(key);
 		if (value != null) {
-			return value;
+			return (T) unwrap(value);
 		}
-		value = loader.get();
-		if (value == null) {
-			return null;
-		}
-		this.set(key, value);
-		return value;
+		return load(key, () -> getRaw(key), () -> {
+			T loaded = loader.get();
+			if (loaded != null) {
+				this.set(key, loaded);
+			}
+			return loaded;
+		});
 	}
 
 	/**
@@ -101,7 +286,31 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 */
 	@Nullable
 	public <T> T get(CacheKey cacheKey) {
-		return (T) valueOps.get(cacheKey.getKey());
+		return (T) unwrap(getRaw(cacheKey));
+	}
+
+	/**
+	 * 读取缓存，开启提前刷新时返回 CacheValue，不处理空值
+	 */
+	@Nullable
+	private Object getRaw(CacheKey cacheKey) {
+		String key = cacheKey.getKey();
+		if (nearCache != null && nearCache.isEnabled(key)) {
+			recordAccess(key);
+			return nearCache.get(key, () -> nearLoad(key, null), cacheKey.getNearExpire());
+		}
+		return getRaw(key);
+	}
+
+	/**
+	 * 还原缓存值，CacheValue 取出实际值，空值返回 null
+	 */
+	@Nullable
+	static Object unwrap(@Nullable Object value) {
+		if (value instanceof NullValue) {
+			return null;
+		}
+		return value instanceof CacheValue ? ((CacheValue) value).getValue() : value;
 	}
 
 	/**
@@ -114,17 +323,152 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 */
 	@Nullable
 	public <T> T get(CacheKey cacheKey, Supplier<T> loader) {
-		String key = cacheKey.getKey();
-		T value = this.get(key);
+		Object value = getRaw(cacheKey);
 		if (value != null) {
-			return value;
+			refreshAhead(cacheKey, value, loader);
+			return (T) unwrap(value);
 		}
-		value = loader.get();
-		if (value == null) {
+		return load(cacheKey.getKey(), () -> getRaw(cacheKey), () -> {
+			Duration loadingLease = cacheKey.getLoadingLease();
+			if (loadingLease == null) {
+				return loadAndSet(cacheKey, loader);
+			}
+			return leaseLoad(cacheKey, loadingLease, loader);
+		});
+	}
+
+	/**
+	 * 先经过布隆过滤器判断，不存在时直接返回 null，不再读取缓存和执行加载器，防止缓存穿透
+	 *
+	 * @param cacheKey    cacheKey，布隆过滤器的元素为 cacheKey.getKey()
+	 * @param bloomFilter 布隆过滤器
+	 * @param loader      cache loader
+	 * @param <T>         泛型
+	 * @return 结果
+	 */
+	@Nullable
+	public <T> T get(CacheKey cacheKey, RedisBloomFilter bloomFilter, Supplier<T> loader) {
+		if (!bloomFilter.mightContain(cacheKey.getKey())) {
 			return null;
 		}
-		this.set(cacheKey, value);
-		return value;
+		return this.get(cacheKey, loader);
+	}
+
+	/**
+	 * 获取布隆过滤器，各节点请使用相同的参数
+	 *
+	 * @param name               redis key
+	 * @param expectedInsertions 预计元素数量
+	 * @param fpp                误判率，例如：0.01
+	 * @return RedisBloomFilter
+	 */
+	public RedisBloomFilter bloomFilter(String name, long expectedInsertions, double fpp) {
+		return new RedisBloomFilter(redisTemplate, scriptRegistry, name, expectedInsertions, fpp);
+	}
+
+	/**
+	 * 执行加载器并写入缓存
+	 */
+	@Nullable
+	private <T> T loadAndSet(CacheKey cacheKey, Supplier<T> loader) {
+		long start = System.currentTimeMillis();
+		T value = loader.get();
+		if (value != null) {
+			this.set(cacheKey, value, System.currentTimeMillis() - start);
+			return value;
+		}
+		// 缓存空值，防止缓存穿透
+		Duration nullExpire = cacheKey.getNullExpire();
+		if (nullExpire != null) {
+			this.setEx(cacheKey.getKey(), NullValue.INSTANCE, nullExpire);
+		}
+		return null;
+	}
+
+	/**
+	 * 临近过期时异步刷新，同一个 key 同时只有一个刷新任务，开启分布式加载时只有拿到租约的节点刷新
+	 */
+	private void refreshAhead(CacheKey cacheKey, Object value, Supplier<?> loader) {
+		RefreshPolicy refreshPolicy = cacheKey.getRefreshPolicy();
+		if (refreshExecutor == null || refreshPolicy == null || !(value instanceof CacheValue)) {
+			return;
+		}
+		CacheValue cacheValue = (CacheValue) value;
+		long expireAt = cacheValue.getWriteTime() + cacheKey.getExpire().toMillis();
+		if (!refreshPolicy.shouldRefresh(cacheValue, expireAt, System.currentTimeMillis())) {
+			return;
+		}
+		String key = cacheKey.getKey();
+		if (!refreshing.add(key)) {
+			return;
+		}
+		try {
+			refreshExecutor.execute(() -> {
+				try {
+					Duration loadingLease = cacheKey.getLoadingLease();
+					if (loadingLease == null) {
+						loadAndSet(cacheKey, loader);
+						return;
+					}
+					String loadingKey = key + LOADING_SUFFIX;
+					String token = leaseLock.tryAcquire(loadingKey, loadingLease);
+					if (token != null) {
+						try {
+							loadAndSet(cacheKey, loader);
+						} finally {
+							leaseLock.release(loadingKey, token);
+						}
+					}
+				} catch (Exception e) {
+					log.warn("refresh ahead failed, key:{}", key, e);
+				} finally {
+					refreshing.remove(key);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			refreshing.remove(key);
+		}
+	}
+
+	/**
+	 * 集群级别的加载保护，拿到 {@code <key>:loading} 租约的节点执行加载器，
+	 * 其他节点优先返回旧值，没有旧值时在租约时间内轮询等待，超时后自行加载
+	 */
+	@Nullable
+	private <T> T leaseLoad(CacheKey cacheKey, Duration loadingLease, Supplier<T> loader) {
+		String key = cacheKey.getKey();
+		String loadingKey = key + LOADING_SUFFIX;
+		String token = leaseLock.tryAcquire(loadingKey, loadingLease);
+		if (token != null) {
+			try {
+				// 其他节点可能刚刚加载完成
+				Object value = valueOps.get(key);
+				return value != null ? (T) unwrap(value) : loadAndSet(cacheKey, loader);
+			} finally {
+				leaseLock.release(loadingKey, token);
+			}
+		}
+		if (cacheKey.getStaleExpire() != null) {
+			T stale = (T) unwrap(valueOps.get(key + STALE_SUFFIX));
+			if (stale != null) {
+				return stale;
+			}
+		}
+		long deadline = System.nanoTime() + loadingLease.toNanos();
+		while (System.nanoTime() - deadline < 0) {
+			try {
+				TimeUnit.MILLISECONDS.sleep(LOADING_POLL_INTERVAL);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				break;
+			}
+			Object value = valueOps.get(key);
+			if (value != null) {
+				return (T) unwrap(value);
+			}
+		}
+		log.warn("wait for loading timeout, key:{}, load by self", key);
+		return loadAndSet(cacheKey, loader);
 	}
 
 	/**
@@ -132,7 +476,9 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 * 不存在的 key 会被忽略。
 	 */
 	public Boolean del(String key) {
-		return redisTemplate.delete(key);
+		Boolean deleted = redisTemplate.delete(key);
+		nearInvalidate(key);
+		return deleted;
 	}
 
 	/**
@@ -140,7 +486,7 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 * 不存在的 key 会被忽略。
 	 */
 	public Boolean del(CacheKey key) {
-		return redisTemplate.delete(key.getKey());
+		return del(key.getKey());
 	}
 
 	/**
@@ -156,7 +502,9 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 * 不存在的 key 会被忽略。
 	 */
 	public Long del(Collection<String> keys) {
-		return redisTemplate.delete(keys);
+		Long deleted = redisTemplate.delete(keys);
+		keys.forEach(this::nearInvalidate);
+		return deleted;
 	}
 
 	/**
@@ -168,9 +516,87 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 * 特殊符号用 \ 隔开
 	 */
 	public Set<String> keys(String pattern) {
+		if (keysGuardSize > 0) {
+			Long dbSize = redisTemplate.execute(RedisConnection::dbSize, true);
+			if (dbSize != null && dbSize > keysGuardSize) {
+				if (keysGuardReject) {
+					throw new IllegalStateException("KEYS is rejected, dbSize:" + dbSize + " > " + keysGuardSize + ", please use scan");
+				}
+				log.warn("KEYS {} on dbSize:{} may block redis, please use scan", pattern, dbSize);
+			}
+		}
 		return redisTemplate.keys(pattern);
 	}
 
+	/**
+	 * 基于 SCAN 游标增量遍历符合给定模式 pattern 的 key，不会像 KEYS 一样阻塞 redis。
+	 * 集群模式下依次遍历所有主节点。返回的 Stream 需要关闭以释放连接。
+	 * <pre>
+	 * 例子：
+	 * try (Stream&lt;String&gt; keys = codeDreamPlusRedis.scan("user:*", 1000)) {
+	 * 		keys.forEach(codeDreamPlusRedis::del);
+	 * }
+	 * </pre>
+	 *
+	 * @param pattern 匹配模式
+	 * @param count   每次遍历的数量提示
+	 * @return key 的 Stream，可能包含重复的 key
+	 */
+	public Stream<String> scan(String pattern, long count) {
+		ScanOptions options = scanOptions(pattern, count);
+		RedisSerializer<?> keySerializer = redisTemplate.getKeySerializer();
+		RedisConnection connection = redisTemplate.getRequiredConnectionFactory().getConnection();
+		Stream<byte[]> stream;
+		try {
+			if (connection instanceof RedisClusterConnection) {
+				RedisClusterConnection clusterConnection = (RedisClusterConnection) connection;
+				List<RedisClusterNode> masters = new ArrayList<>();
+				for (RedisClusterNode node : clusterConnection.clusterGetNodes()) {
+					if (node.isMaster()) {
+						masters.add(node);
+					}
+				}
+				stream = masters.stream().flatMap(node -> stream(clusterConnection.scan(node, options)));
+			} else {
+				stream = stream(connection.scan(options));
+			}
+		} catch (RuntimeException e) {
+			connection.close();
+			throw e;
+		}
+		return stream.map(key -> (String) keySerializer.deserialize(key))
+			.onClose(() -> {
+				if (!connection.isClosed()) {
+					connection.close();
+				}
+			});
+	}
+
+	private static ScanOptions scanOptions(@Nullable String pattern, long count) {
+		ScanOptions.ScanOptionsBuilder builder = ScanOptions.scanOptions().count(count);
+		if (pattern != null) {
+			builder.match(pattern);
+		}
+		return builder.build();
+	}
+
+	/**
+	 * 将游标转换为 Stream，关闭 Stream 时关闭游标
+	 */
+	private static <T> Stream<T> stream(Cursor<T> cursor) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(cursor, Spliterator.ORDERED | Spliterator.NONNULL), false)
+			.onClose(() -> {
+				if (cursor.isClosed()) {
+					return;
+				}
+				try {
+					cursor.close();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+	}
+
 	/**
 	 * 同时设置一个或多个 key-value 对。
 	 * 如果某个给定 key 已经存在，那么 MSET 会用新值覆盖原来的旧值，如果这不是你所希望的效果，请考虑使用 MSETNX 命令：它只会在所有给定 key 都不存在的情况下进行设置操作。
@@ -184,6 +610,77 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 */
 	public void mSet(Map keysValues) {
 		valueOps.multiSet(keysValues);
+		keysValues.keySet().forEach(key -> nearInvalidate(String.valueOf(key)));
+	}
+
+	/**
+	 * 同时设置一个或多个 key-value 对，并设置相同的过期时间。
+	 * MSET 不支持过期时间，此处通过 pipeline 批量执行 SET PX，非原子操作。
+	 *
+	 * @param keysValues key-value 对
+	 * @param timeout    过期时间
+	 * @return 写入成功的 key
+	 */
+	public List<String> mSetEx(Map<String, Object> keysValues, Duration timeout) {
+		List<String> keys = new ArrayList<>(keysValues.keySet());
+		List<Object> results = pipeline(batch -> keys.forEach(key -> batch.setEx(key, keysValues.get(key), timeout)));
+		List<String> written = new ArrayList<>(keys.size());
+		for (int i = 0; i < keys.size(); i++) {
+			if (Boolean.TRUE.equals(results.get(i))) {
+				written.add(keys.get(i));
+			}
+		}
+		return written;
+	}
+
+	/**
+	 * 同时设置一个或多个缓存，按各个 cacheKey 的过期时间写入。
+	 * 通过 pipeline 批量执行 SET PX，非原子操作，与 set(CacheKey, Object) 的写入方式一致。
+	 *
+	 * @param keysValues cacheKey-value 对
+	 * @return 写入成功的 key
+	 */
+	public List<String> mSetEx(Map<CacheKey, Object> keysValues) {
+		List<CacheKey> cacheKeys = new ArrayList<>(keysValues.keySet());
+		int[] positions = new int[cacheKeys.size()];
+		List<Object> results = pipeline(batch -> {
+			for (int i = 0; i < cacheKeys.size(); i++) {
+				CacheKey cacheKey = cacheKeys.get(i);
+				positions[i] = batch.size();
+				batchSet(batch, cacheKey, keysValues.get(cacheKey), 0L);
+			}
+		});
+		List<String> written = new ArrayList<>(cacheKeys.size());
+		for (int i = 0; i < cacheKeys.size(); i++) {
+			if (Boolean.TRUE.equals(results.get(positions[i]))) {
+				written.add(cacheKeys.get(i).getKey());
+			}
+		}
+		return written;
+	}
+
+	/**
+	 * 通过 pipeline 批量执行命令，一次网络往返发送多条命令，命令较多时自动拆分
+	 * <pre>
+	 * 例子：
+	 * List&lt;Object&gt; results = codeDreamPlusRedis.pipeline(batch -&gt; batch
+	 * 		.hSet("h", "f", "v")
+	 * 		.expire("h", Duration.ofMinutes(1))
+	 * 		.zAdd("z", "m", 1D));
+	 * </pre>
+	 *
+	 * @param consumer 添加命令
+	 * @return 按添加顺序返回的结果
+	 */
+	public List<Object> pipeline(Consumer<RedisBatch> consumer) {
+		RedisBatch batch = new RedisBatch();
+		consumer.accept(batch);
+		if (batch.size() == 0) {
+			return new ArrayList<>();
+		}
+		List<Object> results = batch.execute(redisTemplate, pipelineBatchSize);
+		batch.getWrittenKeys().forEach(this::nearInvalidate);
+		return results;
 	}
 
 	/**
@@ -199,7 +696,67 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 * 如果给定的 key 里面，有某个 key 不存在，那么这个 key 返回特殊值 nil 。因此，该命令永不失败。
 	 */
 	public List<Object> mGet(Collection<String> keys) {
-		return valueOps.multiGet(keys);
+		keys.forEach(this::recordAccess);
+		List<Object> values = valueOps.multiGet(keys);
+		if (values != null) {
+			values.replaceAll(CodeDreamPlusRedis::unwrap);
+		}
+		return values;
+	}
+
+	/**
+	 * 批量获取缓存，未命中的 key 一次性交给批量加载器，加载结果按各自的超时时间通过 pipeline 写入缓存
+	 * <pre>
+	 * 例子：
+	 * Map&lt;CacheKey, User&gt; users = codeDreamPlusRedis.getAll(cacheKeys, missing -&gt; userService.loadAll(missing));
+	 * </pre>
+	 *
+	 * @param cacheKeys  cacheKey 集合
+	 * @param bulkLoader 批量加载器，参数为未命中的 cacheKey
+	 * @param <T>        泛型
+	 * @return 存在的缓存，按 cacheKeys 的顺序，不包含 null 值
+	 */
+	public <T> Map<CacheKey, T> getAll(Collection<CacheKey> cacheKeys, Function<Set<CacheKey>, Map<CacheKey, T>> bulkLoader) {
+		List<CacheKey> keyList = new ArrayList<>(new LinkedHashSet<>(cacheKeys));
+		Map<CacheKey, T> result = new LinkedHashMap<>(keyList.size() * 4 / 3 + 1);
+		if (keyList.isEmpty()) {
+			return result;
+		}
+		List<String> keys = new ArrayList<>(keyList.size());
+		keyList.forEach(cacheKey -> keys.add(cacheKey.getKey()));
+		keys.forEach(this::recordAccess);
+		List<Object> values = valueOps.multiGet(keys);
+		Map<CacheKey, Object> cached = new HashMap<>(keyList.size() * 4 / 3 + 1);
+		Set<CacheKey> missing = new LinkedHashSet<>();
+		for (int i = 0; i < keyList.size(); i++) {
+			Object value = values == null ? null : values.get(i);
+			if (value == null) {
+				missing.add(keyList.get(i));
+			} else {
+				cached.put(keyList.get(i), unwrap(value));
+			}
+		}
+		if (!missing.isEmpty()) {
+			long start = System.currentTimeMillis();
+			Map<CacheKey, T> loaded = bulkLoader.apply(missing);
+			long loadCost = System.currentTimeMillis() - start;
+			pipeline(batch -> missing.forEach(cacheKey -> {
+				T value = loaded == null ? null : loaded.get(cacheKey);
+				if (value != null) {
+					batchSet(batch, cacheKey, value, loadCost);
+					cached.put(cacheKey, value);
+				} else if (cacheKey.getNullExpire() != null) {
+					batch.setEx(cacheKey.getKey(), NullValue.INSTANCE, cacheKey.getNullExpire());
+				}
+			}));
+		}
+		for (CacheKey cacheKey : keyList) {
+			Object value = cached.get(cacheKey);
+			if (value != null) {
+				result.put(cacheKey, (T) value);
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -246,10 +803,16 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	}
 
 	/**
-	 * 获取记数器的值
+	 * 获取记数器的值，incr 写入的 redis 原生数字直接解析，不经过序列化
 	 */
 	public Long getCounter(String key) {
-		return Long.valueOf(String.valueOf(valueOps.get(key)));
+		byte[] rawKey = rawKey(key);
+		byte[] bytes = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.get(rawKey));
+		Number number = bytes == null || bytes.length == 0 ? null : PrimitiveRedisSerializer.parseNumber(bytes);
+		if (number != null) {
+			return number.longValue();
+		}
+		return Long.valueOf(String.valueOf(redisTemplate.getValueSerializer().deserialize(bytes)));
 	}
 
 	/**
@@ -326,7 +889,9 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 * 当 key 存在但不是字符串类型时，返回一个错误。
 	 */
 	public <T> T getSet(String key, Object value) {
-		return (T) valueOps.getAndSet(key, value);
+		T oldValue = (T) unwrap(valueOps.getAndSet(key, value));
+		nearInvalidate(key);
+		return oldValue;
 	}
 
 	/**
@@ -366,6 +931,17 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 		hashOps.put(key, field, value);
 	}
 
+	/**
+	 * 按 value 的实际类型将哈希表 key 中的域 field 的值设为 value，
+	 * 只能通过 hGet(String, Object, Class) 读取。
+	 */
+	public void hSetTyped(String key, Object field, Object value) {
+		byte[] rawKey = rawKey(key);
+		byte[] rawField = rawHashKey(field);
+		byte[] rawValue = TypedRedisSerializer.typedSerialize(redisTemplate.getHashValueSerializer(), value);
+		redisTemplate.execute((RedisCallback<Boolean>) connection -> connection.hSet(rawKey, rawField, rawValue));
+	}
+
 	/**
 	 * 同时将多个 field-value (域-值)对设置到哈希表 key 中。
 	 * 此命令会覆盖哈希表中已存在的域。
@@ -375,11 +951,30 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 		hashOps.putAll(key, hash);
 	}
 
+	/**
+	 * 返回哈希表 key 中给定域 field 的值，直接解码为目标类型，不经过多态解码
+	 *
+	 * @param key   key
+	 * @param field 域
+	 * @param type  目标类型
+	 * @param <T>   泛型
+	 * @return 结果
+	 */
+	@Nullable
+	public <T> T hGet(String key, Object field, Class<T> type) {
+		recordAccess(key);
+		byte[] rawKey = rawKey(key);
+		byte[] rawField = rawHashKey(field);
+		byte[] bytes = redisTemplate.execute((RedisCallback<byte[]>) connection -> connection.hGet(rawKey, rawField));
+		return TypedRedisSerializer.typedDeserialize(redisTemplate.getHashValueSerializer(), bytes, type);
+	}
+
 	/**
 	 * 返回哈希表 key 中给定域 field 的值。
 	 */
 	public <T> T hGet(String key, Object field) {
-		return (T) hashOps.get(key, field);
+		recordAccess(key);
+		return (T) unwrap(hashOps.get(key, field));
 	}
 
 	/**
@@ -397,7 +992,11 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 * 因为不存在的 key 被当作一个空哈希表来处理，所以对一个不存在的 key 进行 HMGET 操作将返回一个只带有 nil 值的表。
 	 */
 	public List hmGet(String key, Collection<Object> hashKeys) {
-		return hashOps.multiGet(key, hashKeys);
+		List<Object> values = hashOps.multiGet(key, hashKeys);
+		if (values != null) {
+			values.replaceAll(CodeDreamPlusRedis::unwrap);
+		}
+		return values;
 	}
 
 	/**
@@ -419,14 +1018,22 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 	 * 在返回值里，紧跟每个域名(field name)之后是域的值(value)，所以返回值的长度是哈希表大小的两倍。
 	 */
 	public Map hGetAll(String key) {
-		return hashOps.entries(key);
+		Map<Object, Object> hash = hashOps.entries(key);
+		if (hash != null) {
+			hash.replaceAll((field, value) -> unwrap(value));
+		}
+		return hash;
 	}
 
 	/**
 	 * 返回哈希表 key 中所有域的值。
 	 */
 	public List hVals(String key) {
-		return hashOps.values(key);
+		List<Object> values = hashOps.values(key);
+		if (values != null) {
+			values.replaceAll(CodeDreamPlusRedis::unwrap);
+		}
+		return values;
 	}
 
 	/**
@@ -444,6 +1051,33 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 		return hashOps.size(key);
 	}
 
+	/**
+	 * 基于 HSCAN 游标增量遍历哈希表 key 中的域和值，每次只拉取并反序列化一页，适合超大哈希表。
+	 * 返回的 Stream 需要关闭以释放连接。
+	 *
+	 * @param key   key
+	 * @param count 每页数量提示
+	 * @return 域和值的 Stream
+	 */
+	public <HK, HV> Stream<Map.Entry<HK, HV>> hScan(String key, long count) {
+		return hScan(key, null, count);
+	}
+
+	/**
+	 * 基于 HSCAN 游标增量遍历哈希表 key 中符合模式 pattern 的域和值，每次只拉取并反序列化一页。
+	 * 返回的 Stream 需要关闭以释放连接。
+	 *
+	 * @param key     key
+	 * @param pattern 域的匹配模式，为 null 时不过滤
+	 * @param count   每页数量提示
+	 * @return 域和值的 Stream
+	 */
+	public <HK, HV> Stream<Map.Entry<HK, HV>> hScan(String key, @Nullable String pattern, long count) {
+		Cursor<Map.Entry<Object, Object>> cursor = hashOps.scan(key, scanOptions(pattern, count));
+		return stream(cursor)
+			.map(entry -> new AbstractMap.SimpleImmutableEntry<>((HK) entry.getKey(), (HV) unwrap(entry.getValue())));
+	}
+
 	/**
 	 * 为哈希表 key 中的域 field 的值加上增量 increment 。
 	 * 增量也可以为负数，相当于对给定域进行减法操作。
@@ -606,6 +1240,32 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 		return setOps.members(key);
 	}
 
+	/**
+	 * 基于 SSCAN 游标增量遍历集合 key 中的成员，每次只拉取并反序列化一页，适合超大集合。
+	 * 返回的 Stream 需要关闭以释放连接。
+	 *
+	 * @param key   key
+	 * @param count 每页数量提示
+	 * @return 成员的 Stream，可能包含重复的成员
+	 */
+	public <T> Stream<T> sScan(String key, long count) {
+		return sScan(key, null, count);
+	}
+
+	/**
+	 * 基于 SSCAN 游标增量遍历集合 key 中符合模式 pattern 的成员，每次只拉取并反序列化一页。
+	 * 返回的 Stream 需要关闭以释放连接。
+	 *
+	 * @param key     key
+	 * @param pattern 成员的匹配模式，为 null 时不过滤
+	 * @param count   每页数量提示
+	 * @return 成员的 Stream，可能包含重复的成员
+	 */
+	public <T> Stream<T> sScan(String key, @Nullable String pattern, long count) {
+		Cursor<Object> cursor = setOps.scan(key, scanOptions(pattern, count));
+		return stream(cursor).map(member -> (T) member);
+	}
+
 	/**
 	 * 判断 member 元素是否集合 key 的成员。
 	 */
@@ -739,6 +1399,31 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 		return zSetOps.range(key, start, end);
 	}
 
+	/**
+	 * 基于 ZSCAN 游标增量遍历有序集 key 中的成员和 score，每次只拉取并反序列化一页，适合超大有序集。
+	 * 遍历结果不保证按 score 排序，返回的 Stream 需要关闭以释放连接。
+	 *
+	 * @param key   key
+	 * @param count 每页数量提示
+	 * @return 成员和 score 的 Stream
+	 */
+	public Stream<ZSetOperations.TypedTuple<Object>> zScan(String key, long count) {
+		return zScan(key, null, count);
+	}
+
+	/**
+	 * 基于 ZSCAN 游标增量遍历有序集 key 中符合模式 pattern 的成员和 score，每次只拉取并反序列化一页。
+	 * 遍历结果不保证按 score 排序，返回的 Stream 需要关闭以释放连接。
+	 *
+	 * @param key     key
+	 * @param pattern 成员的匹配模式，为 null 时不过滤
+	 * @param count   每页数量提示
+	 * @return 成员和 score 的 Stream
+	 */
+	public Stream<ZSetOperations.TypedTuple<Object>> zScan(String key, @Nullable String pattern, long count) {
+		return stream(zSetOps.scan(key, scanOptions(pattern, count)));
+	}
+
 	/**
 	 * 返回有序集 key 中，指定区间内的成员。
 	 * 其中成员的位置按 score 值递减(从大到小)来排列。
@@ -791,6 +1476,69 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 		return zSetOps.score(key, member);
 	}
 
+	/**
+	 * 缓存未命中时加载，开启加载合并时同一个 key 只有一个线程执行加载器
+	 *
+	 * @param key    redis key
+	 * @param cached 再次读取缓存，上一个加载线程可能已经写入
+	 * @param loader 加载并写入缓存
+	 * @param <T>    泛型
+	 * @return 结果
+	 */
+	@Nullable
+	private <T> T load(String key, Supplier<Object> cached, Supplier<T> loader) {
+		if (singleFlight == null) {
+			return loader.get();
+		}
+		return singleFlight.execute(key, () -> {
+			Object value = cached.get();
+			return value != null ? (T) unwrap(value) : loader.get();
+		});
+	}
+
+	private void recordAccess(String key) {
+		if (hotKeyDetector != null) {
+			hotKeyDetector.record(key);
+		}
+	}
+
+	/**
+	 * 写入后删除本地一级缓存，并通知其他节点
+	 *
+	 * @param key redis key
+	 */
+	private void nearInvalidate(String key) {
+		if (nearCache != null && nearCache.shouldInvalidate(key)) {
+			nearCache.invalidate(key);
+		}
+	}
+
+	private byte[] rawKey(String key) {
+		return ((RedisSerializer<String>) redisTemplate.getKeySerializer()).serialize(key);
+	}
+
+	private byte[] rawHashKey(Object field) {
+		return ((RedisSerializer<Object>) redisTemplate.getHashKeySerializer()).serialize(field);
+	}
+
+	/**
+	 * 本地缓存未命中时读取 redis，通过 pipeline 同时读取剩余过期时间。
+	 * 保留 CacheValue 用于提前刷新，指定 type 时按目标类型解码
+	 */
+	private NearCache.Loaded nearLoad(String key, @Nullable Class<?> type) {
+		byte[] rawKey = rawKey(key);
+		List<Object> results = redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+			connection.get(rawKey);
+			connection.pTtl(rawKey);
+			return null;
+		}, RedisSerializer.byteArray());
+		byte[] bytes = (byte[]) results.get(0);
+		Object value = type == null ? redisTemplate.getValueSerializer().deserialize(bytes)
+			: TypedRedisSerializer.typedDeserialize(redisTemplate.getValueSerializer(), bytes, type);
+		Long ttl = (Long) results.get(1);
+		return new NearCache.Loaded(value, ttl == null ? -1L : ttl);
+	}
+
 	@Override
 	public void afterSingletonsInstantiated() {
 		Assert.notNull(redisTemplate, "redisTemplate is null");
@@ -799,6 +1547,15 @@ public class CodeDreamPlusRedis implements SmartInitializingSingleton {
 		listOps = redisTemplate.opsForList();
 		setOps = redisTemplate.opsForSet();
 		zSetOps = redisTemplate.opsForZSet();
+		Assert.notNull(scriptRegistry, "scriptRegistry is null");
+		leaseLock = new RedisLeaseLock(redisTemplate, scriptRegistry);
+	}
+
+	@Override
+	public void destroy() {
+		if (refreshExecutor != null) {
+			refreshExecutor.shutdown();
+		}
 	}
 
 }
@@ -0,0 +1,642 @@
+package com.codedreamplus.redis;
+
+import com.codedreamplus.redis.cache.CacheValue;
+import com.codedreamplus.redis.cache.NearCache;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.domain.Range;
+import org.springframework.data.redis.connection.DataType;
+import org.springframework.data.redis.core.*;
+import org.springframework.lang.Nullable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * 响应式 redis 工具，与 CodeDreamPlusRedis 的命令一一对应，返回 Mono/Flux
+ *
+ * <p>
+ * 基于 ReactiveRedisTemplate，与 CodeDreamPlusRedis 使用相同的 key、value 序列化，
+ * 单值结果为 Mono，不存在时为空；多值结果为 Flux。
+ * </p>
+ *
+ * @author cool
+ */
+@Slf4j
+@Getter
+@SuppressWarnings("unchecked")
+public class ReactiveCodeDreamPlusRedis {
+	private final ReactiveRedisTemplate<String, Object> reactiveRedisTemplate;
+	private final ReactiveValueOperations<String, Object> valueOps;
+	private final ReactiveHashOperations<String, Object, Object> hashOps;
+	private final ReactiveListOperations<String, Object> listOps;
+	private final ReactiveSetOperations<String, Object> setOps;
+	private final ReactiveZSetOperations<String, Object> zSetOps;
+	/**
+	 * 本地一级缓存，写入后失效，为 null 时不处理
+	 */
+	@Setter
+	@Nullable
+	private NearCache nearCache;
+
+	public ReactiveCodeDreamPlusRedis(ReactiveRedisTemplate<String, Object> reactiveRedisTemplate) {
+		this.reactiveRedisTemplate = reactiveRedisTemplate;
+		this.valueOps = reactiveRedisTemplate.opsForValue();
+		this.hashOps = reactiveRedisTemplate.opsForHash();
+		this.listOps = reactiveRedisTemplate.opsForList();
+		this.setOps = reactiveRedisTemplate.opsForSet();
+		this.zSetOps = reactiveRedisTemplate.opsForZSet();
+	}
+
+	/**
+	 * 存放 key value 对到 redis。
+	 */
+	public Mono<Boolean> set(String key, Object value) {
+		return write(key, valueOps.set(key, value));
+	}
+
+	/**
+	 * 存放 key value 对到 redis，并将 key 的生存时间设为 timeout。
+	 * 如果 key 已经存在， SETEX 命令将覆写旧值。
+	 */
+	public Mono<Boolean> setEx(String key, Object value, Duration timeout) {
+		return write(key, valueOps.set(key, value, timeout));
+	}
+
+	/**
+	 * 存放 key value 对到 redis，并将 key 的生存时间设为 seconds (以秒为单位)。
+	 * 如果 key 已经存在， SETEX 命令将覆写旧值。
+	 */
+	public Mono<Boolean> setEx(String key, Object value, Long seconds) {
+		return setEx(key, value, Duration.ofSeconds(seconds));
+	}
+
+	/**
+	 * 返回 key 所关联的 value 值
+	 * 如果 key 不存在那么返回空的 Mono 。
+	 */
+	public <T> Mono<T> get(String key) {
+		return valueOps.get(key)
+			.filter(value -> !(value instanceof NullValue))
+			.map(value -> (T) unwrap(value));
+	}
+
+	/**
+	 * 将给定 key 的值设为 value ，并返回 key 的旧值(old value)。
+	 * 当 key 存在但不是字符串类型时，返回一个错误。
+	 */
+	public <T> Mono<T> getSet(String key, Object value) {
+		return write(key, valueOps.getAndSet(key, value)
+			.filter(old -> !(old instanceof NullValue))
+			.map(old -> (T) unwrap(old)));
+	}
+
+	/**
+	 * 删除给定的一个 key
+	 * 不存在的 key 会被忽略。
+	 */
+	public Mono<Boolean> del(String key) {
+		return write(key, reactiveRedisTemplate.delete(key).map(count -> count > 0));
+	}
+
+	/**
+	 * 删除给定的多个 key
+	 * 不存在的 key 会被忽略。
+	 */
+	public Mono<Long> del(String... keys) {
+		return del(Arrays.asList(keys));
+	}
+
+	/**
+	 * 删除给定的多个 key
+	 * 不存在的 key 会被忽略。
+	 */
+	public Mono<Long> del(Collection<String> keys) {
+		return write(keys, reactiveRedisTemplate.delete(Flux.fromIterable(keys)));
+	}
+
+	/**
+	 * 同时设置一个或多个 key-value 对。
+	 * 如果某个给定 key 已经存在，那么 MSET 会用新值覆盖原来的旧值。
+	 */
+	public Mono<Boolean> mSet(Map<String, Object> keysValues) {
+		return write(keysValues.keySet(), valueOps.multiSet(keysValues));
+	}
+
+	/**
+	 * 返回所有(一个或多个)给定 key 的值。
+	 * 如果给定的 key 里面，有某个 key 不存在，那么这个 key 返回特殊值 nil 。
+	 */
+	public Mono<List<Object>> mGet(String... keys) {
+		return mGet(Arrays.asList(keys));
+	}
+
+	/**
+	 * 返回所有(一个或多个)给定 key 的值。
+	 * 如果给定的 key 里面，有某个 key 不存在，那么这个 key 返回特殊值 nil 。
+	 */
+	public Mono<List<Object>> mGet(Collection<String> keys) {
+		return valueOps.multiGet(keys).map(ReactiveCodeDreamPlusRedis::unwrapAll);
+	}
+
+	/**
+	 * 将 key 中储存的数字值减一。
+	 */
+	public Mono<Long> decr(String key) {
+		return valueOps.decrement(key);
+	}
+
+	/**
+	 * 将 key 所储存的值减去减量 decrement 。
+	 */
+	public Mono<Long> decrBy(String key, long longValue) {
+		return valueOps.decrement(key, longValue);
+	}
+
+	/**
+	 * 将 key 中储存的数字值增一。
+	 */
+	public Mono<Long> incr(String key) {
+		return valueOps.increment(key);
+	}
+
+	/**
+	 * 将 key 所储存的值加上增量 increment 。
+	 */
+	public Mono<Long> incrBy(String key, long longValue) {
+		return valueOps.increment(key, longValue);
+	}
+
+	/**
+	 * 获取记数器的值
+	 */
+	public Mono<Long> getCounter(String key) {
+		return valueOps.get(key).map(value -> Long.valueOf(String.valueOf(value)));
+	}
+
+	/**
+	 * 检查给定 key 是否存在。
+	 */
+	public Mono<Boolean> exists(String key) {
+		return reactiveRedisTemplate.hasKey(key);
+	}
+
+	/**
+	 * 将 key 改名为 newkey 。
+	 */
+	public Mono<Boolean> rename(String oldkey, String newkey) {
+		return write(Arrays.asList(oldkey, newkey), reactiveRedisTemplate.rename(oldkey, newkey));
+	}
+
+	/**
+	 * 为给定 key 设置生存时间，当 key 过期时(生存时间为 0 )，它会被自动删除。
+	 */
+	public Mono<Boolean> expire(String key, long seconds) {
+		return expire(key, Duration.ofSeconds(seconds));
+	}
+
+	/**
+	 * 为给定 key 设置生存时间，当 key 过期时(生存时间为 0 )，它会被自动删除。
+	 */
+	public Mono<Boolean> expire(String key, Duration timeout) {
+		return reactiveRedisTemplate.expire(key, timeout);
+	}
+
+	/**
+	 * 这个命令和 EXPIRE 命令的作用类似，但是它以毫秒为单位设置 key 的生存时间。
+	 */
+	public Mono<Boolean> pexpire(String key, long milliseconds) {
+		return expire(key, Duration.ofMillis(milliseconds));
+	}
+
+	/**
+	 * 移除给定 key 的生存时间。
+	 */
+	public Mono<Boolean> persist(String key) {
+		return reactiveRedisTemplate.persist(key);
+	}
+
+	/**
+	 * 返回 key 所储存的值的类型。
+	 */
+	public Mono<String> type(String key) {
+		return reactiveRedisTemplate.type(key).map(DataType::code);
+	}
+
+	/**
+	 * 以秒为单位，返回给定 key 的剩余生存时间(TTL, time to live)。
+	 */
+	public Mono<Long> ttl(String key) {
+		return reactiveRedisTemplate.getExpire(key).map(Duration::getSeconds);
+	}
+
+	/**
+	 * 以毫秒为单位返回 key 的剩余生存时间。
+	 */
+	public Mono<Long> pttl(String key) {
+		return reactiveRedisTemplate.getExpire(key).map(Duration::toMillis);
+	}
+
+	/**
+	 * 将哈希表 key 中的域 field 的值设为 value 。
+	 */
+	public Mono<Boolean> hSet(String key, Object field, Object value) {
+		return hashOps.put(key, field, value);
+	}
+
+	/**
+	 * 同时将多个 field-value (域-值)对设置到哈希表 key 中。
+	 */
+	public Mono<Boolean> hMset(String key, Map<Object, Object> hash) {
+		return hashOps.putAll(key, hash);
+	}
+
+	/**
+	 * 返回哈希表 key 中给定域 field 的值。
+	 */
+	public <T> Mono<T> hGet(String key, Object field) {
+		return hashOps.get(key, field)
+			.filter(value -> !(value instanceof NullValue))
+			.map(value -> (T) unwrap(value));
+	}
+
+	/**
+	 * 返回哈希表 key 中，一个或多个给定域的值。
+	 */
+	public Mono<List<Object>> hmGet(String key, Object... fields) {
+		return hmGet(key, Arrays.asList(fields));
+	}
+
+	/**
+	 * 返回哈希表 key 中，一个或多个给定域的值。
+	 */
+	public Mono<List<Object>> hmGet(String key, Collection<Object> hashKeys) {
+		return hashOps.multiGet(key, hashKeys).map(ReactiveCodeDreamPlusRedis::unwrapAll);
+	}
+
+	/**
+	 * 删除哈希表 key 中的一个或多个指定域，不存在的域将被忽略。
+	 */
+	public Mono<Long> hDel(String key, Object... fields) {
+		return hashOps.remove(key, fields);
+	}
+
+	/**
+	 * 查看哈希表 key 中，给定域 field 是否存在。
+	 */
+	public Mono<Boolean> hExists(String key, Object field) {
+		return hashOps.hasKey(key, field);
+	}
+
+	/**
+	 * 返回哈希表 key 中，所有的域和值。
+	 */
+	public Flux<Map.Entry<Object, Object>> hGetAll(String key) {
+		return hashOps.entries(key)
+			.map(entry -> new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), unwrap(entry.getValue())));
+	}
+
+	/**
+	 * 返回哈希表 key 中所有域的值。
+	 */
+	public Flux<Object> hVals(String key) {
+		return hashOps.values(key)
+			.filter(value -> !(value instanceof NullValue))
+			.map(ReactiveCodeDreamPlusRedis::unwrap);
+	}
+
+	/**
+	 * 返回哈希表 key 中的所有域。
+	 */
+	public Flux<Object> hKeys(String key) {
+		return hashOps.keys(key);
+	}
+
+	/**
+	 * 返回哈希表 key 中域的数量。
+	 */
+	public Mono<Long> hLen(String key) {
+		return hashOps.size(key);
+	}
+
+	/**
+	 * 为哈希表 key 中的域 field 的值加上增量 increment 。
+	 */
+	public Mono<Long> hIncrBy(String key, Object field, long value) {
+		return hashOps.increment(key, field, value);
+	}
+
+	/**
+	 * 为哈希表 key 中的域 field 加上浮点数增量 increment 。
+	 */
+	public Mono<Double> hIncrByFloat(String key, Object field, double value) {
+		return hashOps.increment(key, field, value);
+	}
+
+	/**
+	 * 返回列表 key 中，下标为 index 的元素。
+	 */
+	public <T> Mono<T> lIndex(String key, long index) {
+		return listOps.index(key, index).map(value -> (T) value);
+	}
+
+	/**
+	 * 返回列表 key 的长度。
+	 */
+	public Mono<Long> lLen(String key) {
+		return listOps.size(key);
+	}
+
+	/**
+	 * 移除并返回列表 key 的头元素。
+	 */
+	public <T> Mono<T> lPop(String key) {
+		return listOps.leftPop(key).map(value -> (T) value);
+	}
+
+	/**
+	 * 将一个或多个值 value 插入到列表 key 的表头
+	 */
+	public Mono<Long> lPush(String key, Object... values) {
+		return listOps.leftPushAll(key, values);
+	}
+
+	/**
+	 * 将列表 key 下标为 index 的元素的值设置为 value 。
+	 */
+	public Mono<Boolean> lSet(String key, long index, Object value) {
+		return listOps.set(key, index, value);
+	}
+
+	/**
+	 * 根据参数 count 的值，移除列表中与参数 value 相等的元素。
+	 */
+	public Mono<Long> lRem(String key, long count, Object value) {
+		return listOps.remove(key, count, value);
+	}
+
+	/**
+	 * 返回列表 key 中指定区间内的元素，区间以偏移量 start 和 stop 指定。
+	 */
+	public Flux<Object> lRange(String key, long start, long end) {
+		return listOps.range(key, start, end);
+	}
+
+	/**
+	 * 对一个列表进行修剪(trim)，让列表只保留指定区间内的元素。
+	 */
+	public Mono<Boolean> lTrim(String key, long start, long end) {
+		return listOps.trim(key, start, end);
+	}
+
+	/**
+	 * 移除并返回列表 key 的尾元素。
+	 */
+	public <T> Mono<T> rPop(String key) {
+		return listOps.rightPop(key).map(value -> (T) value);
+	}
+
+	/**
+	 * 将一个或多个值 value 插入到列表 key 的表尾(最右边)。
+	 */
+	public Mono<Long> rPush(String key, Object... values) {
+		return listOps.rightPushAll(key, values);
+	}
+
+	/**
+	 * 将列表 source 中的最后一个元素(尾元素)弹出，并返回给客户端，同时插入到列表 destination 的头部。
+	 */
+	public <T> Mono<T> rPopLPush(String srcKey, String dstKey) {
+		return listOps.rightPopAndLeftPush(srcKey, dstKey).map(value -> (T) value);
+	}
+
+	/**
+	 * 将一个或多个 member 元素加入到集合 key 当中，已经存在于集合的 member 元素将被忽略。
+	 */
+	public Mono<Long> sAdd(String key, Object... members) {
+		return setOps.add(key, members);
+	}
+
+	/**
+	 * 移除并返回集合中的一个随机元素。
+	 */
+	public <T> Mono<T> sPop(String key) {
+		return setOps.pop(key).map(value -> (T) value);
+	}
+
+	/**
+	 * 返回集合 key 中的所有成员。
+	 */
+	public Flux<Object> sMembers(String key) {
+		return setOps.members(key);
+	}
+
+	/**
+	 * 判断 member 元素是否集合 key 的成员。
+	 */
+	public Mono<Boolean> sIsMember(String key, Object member) {
+		return setOps.isMember(key, member);
+	}
+
+	/**
+	 * 返回多个集合的交集，多个集合由 keys 指定
+	 */
+	public Flux<Object> sInter(String key, String otherKey) {
+		return setOps.intersect(key, otherKey);
+	}
+
+	/**
+	 * 返回多个集合的交集，多个集合由 keys 指定
+	 */
+	public Flux<Object> sInter(String key, Collection<String> otherKeys) {
+		return setOps.intersect(key, otherKeys);
+	}
+
+	/**
+	 * 返回集合中的一个随机元素。
+	 */
+	public <T> Mono<T> sRandMember(String key) {
+		return setOps.randomMember(key).map(value -> (T) value);
+	}
+
+	/**
+	 * 返回集合中的 count 个随机元素，可能重复。
+	 */
+	public Flux<Object> sRandMember(String key, int count) {
+		return setOps.randomMembers(key, count);
+	}
+
+	/**
+	 * 移除集合 key 中的一个或多个 member 元素，不存在的 member 元素会被忽略。
+	 */
+	public Mono<Long> sRem(String key, Object... members) {
+		return setOps.remove(key, members);
+	}
+
+	/**
+	 * 返回多个集合的并集，多个集合由 keys 指定
+	 */
+	public Flux<Object> sUnion(String key, String otherKey) {
+		return setOps.union(key, otherKey);
+	}
+
+	/**
+	 * 返回多个集合的并集，多个集合由 keys 指定
+	 */
+	public Flux<Object> sUnion(String key, Collection<String> otherKeys) {
+		return setOps.union(key, otherKeys);
+	}
+
+	/**
+	 * 返回一个集合的全部成员，该集合是所有给定集合之间的差集。
+	 */
+	public Flux<Object> sDiff(String key, String otherKey) {
+		return setOps.difference(key, otherKey);
+	}
+
+	/**
+	 * 返回一个集合的全部成员，该集合是所有给定集合之间的差集。
+	 */
+	public Flux<Object> sDiff(String key, Collection<String> otherKeys) {
+		return setOps.difference(key, otherKeys);
+	}
+
+	/**
+	 * 将一个 member 元素及其 score 值加入到有序集 key 当中。
+	 */
+	public Mono<Boolean> zAdd(String key, Object member, double score) {
+		return zSetOps.add(key, member, score);
+	}
+
+	/**
+	 * 将一个或多个 member 元素及其 score 值加入到有序集 key 当中。
+	 */
+	public Mono<Long> zAdd(String key, Map<Object, Double> scoreMembers) {
+		List<ZSetOperations.TypedTuple<Object>> tuples = new ArrayList<>(scoreMembers.size());
+		scoreMembers.forEach((member, score) -> tuples.add(new DefaultTypedTuple<>(member, score)));
+		return zSetOps.addAll(key, tuples);
+	}
+
+	/**
+	 * 返回有序集 key 的基数。
+	 */
+	public Mono<Long> zCard(String key) {
+		return zSetOps.size(key);
+	}
+
+	/**
+	 * 返回有序集 key 中， score 值在 min 和 max 之间(默认包括 score 值等于 min 或 max )的成员的数量。
+	 */
+	public Mono<Long> zCount(String key, double min, double max) {
+		return zSetOps.count(key, Range.closed(min, max));
+	}
+
+	/**
+	 * 为有序集 key 的成员 member 的 score 值加上增量 increment 。
+	 */
+	public Mono<Double> zIncrBy(String key, Object member, double score) {
+		return zSetOps.incrementScore(key, member, score);
+	}
+
+	/**
+	 * 返回有序集 key 中，指定区间内的成员，按 score 值递增(从小到大)来排序。
+	 */
+	public Flux<Object> zRange(String key, long start, long end) {
+		return zSetOps.range(key, Range.closed(start, end));
+	}
+
+	/**
+	 * 返回有序集 key 中，指定区间内的成员，按 score 值递减(从大到小)来排列。
+	 */
+	public Flux<Object> zRevrange(String key, long start, long end) {
+		return zSetOps.reverseRange(key, Range.closed(start, end));
+	}
+
+	/**
+	 * 返回有序集 key 中，所有 score 值介于 min 和 max 之间(包括等于 min 或 max )的成员。
+	 */
+	public Flux<Object> zRangeByScore(String key, double min, double max) {
+		return zSetOps.rangeByScore(key, Range.closed(min, max));
+	}
+
+	/**
+	 * 返回有序集 key 中成员 member 的排名。其中有序集成员按 score 值递增(从小到大)顺序排列。
+	 */
+	public Mono<Long> zRank(String key, Object member) {
+		return zSetOps.rank(key, member);
+	}
+
+	/**
+	 * 返回有序集 key 中成员 member 的排名。其中有序集成员按 score 值递减(从大到小)排序。
+	 */
+	public Mono<Long> zRevrank(String key, Object member) {
+		return zSetOps.reverseRank(key, member);
+	}
+
+	/**
+	 * 移除有序集 key 中的一个或多个成员，不存在的成员将被忽略。
+	 */
+	public Mono<Long> zRem(String key, Object... members) {
+		return zSetOps.remove(key, members);
+	}
+
+	/**
+	 * 返回有序集 key 中，成员 member 的 score 值。
+	 */
+	public Mono<Double> zScore(String key, Object member) {
+		return zSetOps.score(key, member);
+	}
+
+	/**
+	 * 缓存的空值转换为 null，提前刷新的包装值取出原值
+	 */
+	@Nullable
+	private static Object unwrap(@Nullable Object value) {
+		if (value instanceof NullValue) {
+			return null;
+		}
+		return value instanceof CacheValue ? ((CacheValue) value).getValue() : value;
+	}
+
+	private static List<Object> unwrapAll(List<Object> values) {
+		List<Object> result = new ArrayList<>(values.size());
+		values.forEach(value -> result.add(unwrap(value)));
+		return result;
+	}
+
+	/**
+	 * 写入完成后失效本地缓存
+	 */
+	private <T> Mono<T> write(String key, Mono<T> command) {
+		return write(Collections.singletonList(key), command);
+	}
+
+	/**
+	 * 写入完成后失效本地缓存，失效通知通过响应式连接发布，不阻塞 I/O 线程
+	 */
+	private <T> Mono<T> write(Collection<String> keys, Mono<T> command) {
+		NearCache nearCache = this.nearCache;
+		if (nearCache == null) {
+			return command;
+		}
+		return command.flatMap(result -> Flux.fromIterable(keys)
+			.filter(nearCache::shouldInvalidate)
+			.concatMap(key -> {
+				nearCache.invalidateLocal(key);
+				ByteBuffer channel = ByteBuffer.wrap(nearCache.getChannel().getBytes(StandardCharsets.UTF_8));
+				ByteBuffer message = ByteBuffer.wrap(key.getBytes(StandardCharsets.UTF_8));
+				return reactiveRedisTemplate.execute(connection -> connection.pubSubCommands().publish(channel, message))
+					.onErrorResume(e -> {
+						log.warn("near cache invalidate publish failed, key:{}", key, e);
+						return Mono.empty();
+					});
+			})
+			.then(Mono.just(result)));
+	}
+}
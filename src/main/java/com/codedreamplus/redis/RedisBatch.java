@@ -0,0 +1,306 @@
+package com.codedreamplus.redis;
+
+import lombok.Getter;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.DefaultTypedTuple;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.ZSetOperations;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * redis 批量命令，通过 pipeline 一次发送，结果按添加顺序返回
+ *
+ * <p>
+ * 方法与 CodeDreamPlusRedis 保持一致，value 使用 redisTemplate 配置的序列化方式，
+ * 命令较多时按 batchSize 自动拆分为多次 pipeline，避免客户端和服务端缓冲区过大
+ * </p>
+ *
+ * @author cool
+ * @see CodeDreamPlusRedis#pipeline(Consumer)
+ */
+public class RedisBatch {
+	private final List<Consumer<RedisOperations<String, Object>>> commands = new ArrayList<>();
+	/**
+	 * 返回状态回复（OK）的命令位置，pipeline 不返回这些命令的结果，执行后补 null 保持结果与命令一一对应
+	 */
+	private final BitSet statusReplies = new BitSet();
+	/**
+	 * 读取 value 的命令位置，执行后还原 CacheValue 和空值，与 CodeDreamPlusRedis 的读取方法一致
+	 */
+	private final BitSet valueReplies = new BitSet();
+	/**
+	 * 写入过的 key，执行后用于删除本地一级缓存
+	 */
+	@Getter
+	private final Set<String> writtenKeys = new LinkedHashSet<>();
+
+	/**
+	 * 存放 key value 对到 redis。
+	 */
+	public RedisBatch set(String key, Object value) {
+		writtenKeys.add(key);
+		return add(ops -> ops.opsForValue().set(key, value));
+	}
+
+	/**
+	 * 存放 key value 对到 redis，并设置过期时间
+	 */
+	public RedisBatch setEx(String key, Object value, Duration timeout) {
+		writtenKeys.add(key);
+		return add(ops -> ops.opsForValue().set(key, value, timeout.toMillis(), TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * 只在 key 不存在时设置 value，并设置过期时间
+	 */
+	public RedisBatch setNx(String key, Object value, Duration timeout) {
+		writtenKeys.add(key);
+		return add(ops -> ops.opsForValue().setIfAbsent(key, value, timeout.toMillis(), TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * 返回 key 所关联的 value 值
+	 */
+	public RedisBatch get(String key) {
+		return addValue(ops -> ops.opsForValue().get(key));
+	}
+
+	/**
+	 * 将给定 key 的值设为 value ，并返回 key 的旧值(old value)。
+	 */
+	public RedisBatch getSet(String key, Object value) {
+		writtenKeys.add(key);
+		return addValue(ops -> ops.opsForValue().getAndSet(key, value));
+	}
+
+	/**
+	 * 删除给定的一个 key
+	 */
+	public RedisBatch del(String key) {
+		writtenKeys.add(key);
+		return add(ops -> ops.delete(key));
+	}
+
+	/**
+	 * 检查给定 key 是否存在。
+	 */
+	public RedisBatch exists(String key) {
+		return add(ops -> ops.hasKey(key));
+	}
+
+	/**
+	 * 为给定 key 设置生存时间
+	 */
+	public RedisBatch expire(String key, Duration timeout) {
+		return add(ops -> ops.expire(key, timeout.toMillis(), TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * 以毫秒为单位设置 key 的生存时间
+	 */
+	public RedisBatch pexpire(String key, long milliseconds) {
+		return add(ops -> ops.expire(key, milliseconds, TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * 以毫秒为单位返回给定 key 的剩余生存时间
+	 */
+	public RedisBatch pttl(String key) {
+		return add(ops -> ops.getExpire(key, TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * 将 key 中储存的数字值增一。
+	 */
+	public RedisBatch incr(String key) {
+		return add(ops -> ops.opsForValue().increment(key));
+	}
+
+	/**
+	 * 将 key 所储存的值加上增量 increment 。
+	 */
+	public RedisBatch incrBy(String key, long longValue) {
+		return add(ops -> ops.opsForValue().increment(key, longValue));
+	}
+
+	/**
+	 * 将 key 中储存的数字值减一。
+	 */
+	public RedisBatch decr(String key) {
+		return add(ops -> ops.opsForValue().decrement(key));
+	}
+
+	/**
+	 * 将 key 所储存的值减去减量 decrement 。
+	 */
+	public RedisBatch decrBy(String key, long longValue) {
+		return add(ops -> ops.opsForValue().decrement(key, longValue));
+	}
+
+	/**
+	 * 将哈希表 key 中的域 field 的值设为 value 。
+	 */
+	public RedisBatch hSet(String key, Object field, Object value) {
+		return add(ops -> ops.opsForHash().put(key, field, value));
+	}
+
+	/**
+	 * 同时将多个 field-value (域-值)对设置到哈希表 key 中，结果为 null。
+	 */
+	public RedisBatch hMset(String key, Map<Object, Object> hash) {
+		return addStatus(ops -> ops.opsForHash().putAll(key, hash));
+	}
+
+	/**
+	 * 返回哈希表 key 中给定域 field 的值。
+	 */
+	public RedisBatch hGet(String key, Object field) {
+		return addValue(ops -> ops.opsForHash().get(key, field));
+	}
+
+	/**
+	 * 删除哈希表 key 中的一个或多个指定域，不存在的域将被忽略。
+	 */
+	public RedisBatch hDel(String key, Object... fields) {
+		return add(ops -> ops.opsForHash().delete(key, fields));
+	}
+
+	/**
+	 * 为哈希表 key 中的域 field 的值加上增量 increment 。
+	 */
+	public RedisBatch hIncrBy(String key, Object field, long value) {
+		return add(ops -> ops.opsForHash().increment(key, field, value));
+	}
+
+	/**
+	 * 将一个或多个值 value 插入到列表 key 的表头
+	 */
+	public RedisBatch lPush(String key, Object... values) {
+		return add(ops -> ops.opsForList().leftPushAll(key, values));
+	}
+
+	/**
+	 * 将一个或多个值 value 插入到列表 key 的表尾(最右边)。
+	 */
+	public RedisBatch rPush(String key, Object... values) {
+		return add(ops -> ops.opsForList().rightPushAll(key, values));
+	}
+
+	/**
+	 * 对一个列表进行修剪(trim)，让列表只保留指定区间内的元素，结果为 null。
+	 */
+	public RedisBatch lTrim(String key, long start, long end) {
+		return addStatus(ops -> ops.opsForList().trim(key, start, end));
+	}
+
+	/**
+	 * 将一个或多个 member 元素加入到集合 key 当中
+	 */
+	public RedisBatch sAdd(String key, Object... members) {
+		return add(ops -> ops.opsForSet().add(key, members));
+	}
+
+	/**
+	 * 移除集合 key 中的一个或多个 member 元素
+	 */
+	public RedisBatch sRem(String key, Object... members) {
+		return add(ops -> ops.opsForSet().remove(key, members));
+	}
+
+	/**
+	 * 将 member 元素及其 score 值加入到有序集 key 当中。
+	 */
+	public RedisBatch zAdd(String key, Object member, double score) {
+		return add(ops -> ops.opsForZSet().add(key, member, score));
+	}
+
+	/**
+	 * 将多个 member 元素及其 score 值加入到有序集 key 当中。
+	 */
+	public RedisBatch zAdd(String key, Map<Object, Double> scoreMembers) {
+		Set<ZSetOperations.TypedTuple<Object>> tuples = new HashSet<>();
+		scoreMembers.forEach((k, v) -> tuples.add(new DefaultTypedTuple<>(k, v)));
+		return add(ops -> ops.opsForZSet().add(key, tuples));
+	}
+
+	/**
+	 * 为有序集 key 的成员 member 的 score 值加上增量 increment 。
+	 */
+	public RedisBatch zIncrBy(String key, Object member, double score) {
+		return add(ops -> ops.opsForZSet().incrementScore(key, member, score));
+	}
+
+	/**
+	 * 移除有序集 key 中的一个或多个成员
+	 */
+	public RedisBatch zRem(String key, Object... members) {
+		return add(ops -> ops.opsForZSet().remove(key, members));
+	}
+
+	/**
+	 * 返回有序集 key 中，成员 member 的 score 值。
+	 */
+	public RedisBatch zScore(String key, Object member) {
+		return add(ops -> ops.opsForZSet().score(key, member));
+	}
+
+	/**
+	 * 命令数量
+	 *
+	 * @return 命令数量
+	 */
+	public int size() {
+		return commands.size();
+	}
+
+	private RedisBatch add(Consumer<RedisOperations<String, Object>> command) {
+		commands.add(command);
+		return this;
+	}
+
+	private RedisBatch addStatus(Consumer<RedisOperations<String, Object>> command) {
+		statusReplies.set(commands.size());
+		return add(command);
+	}
+
+	private RedisBatch addValue(Consumer<RedisOperations<String, Object>> command) {
+		valueReplies.set(commands.size());
+		return add(command);
+	}
+
+	/**
+	 * 执行批量命令
+	 *
+	 * @param redisTemplate redisTemplate
+	 * @param batchSize     每次 pipeline 的最大命令数
+	 * @return 按添加顺序返回的结果，无返回值的命令结果为 null
+	 */
+	List<Object> execute(RedisTemplate<String, Object> redisTemplate, int batchSize) {
+		List<Object> results = new ArrayList<>(commands.size());
+		for (int from = 0; from < commands.size(); from += batchSize) {
+			int to = Math.min(from + batchSize, commands.size());
+			List<Consumer<RedisOperations<String, Object>>> chunk = commands.subList(from, to);
+			List<Object> chunkResults = redisTemplate.executePipelined(new SessionCallback<Object>() {
+				@Override
+				@SuppressWarnings("unchecked")
+				public <K, V> Object execute(RedisOperations<K, V> operations) throws DataAccessException {
+					RedisOperations<String, Object> ops = (RedisOperations<String, Object>) operations;
+					chunk.forEach(command -> command.accept(ops));
+					return null;
+				}
+			});
+			Iterator<Object> iterator = chunkResults.iterator();
+			for (int i = from; i < to; i++) {
+				Object result = statusReplies.get(i) || !iterator.hasNext() ? null : iterator.next();
+				results.add(valueReplies.get(i) ? CodeDreamPlusRedis.unwrap(result) : result);
+			}
+		}
+		return results;
+	}
+}
@@ -0,0 +1,297 @@
+package com.codedreamplus.redis.bloom;
+
+import com.codedreamplus.redis.script.RedisScriptRegistry;
+import lombok.AccessLevel;
+import lombok.Getter;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.script.ScriptExecutor;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基于 redis bitmap 的布隆过滤器
+ *
+ * <p>
+ * 1. 根据预计元素数量和误判率计算 bit 数和 hash 函数个数，各节点请使用相同的参数
+ * 2. hash 在客户端计算，每次 add、mightContain 以及批量操作均为一次 lua 脚本调用
+ * 3. 判断不存在时一定不存在，判断存在时可能误判
+ * </p>
+ *
+ * @author cool
+ */
+@Getter
+public class RedisBloomFilter {
+	/**
+	 * redis bitmap 最大 2^32 bit
+	 */
+	private static final long MAX_BIT_SIZE = 1L << 32;
+	/**
+	 * 批量操作时每次脚本调用的最大元素数
+	 */
+	private static final int BATCH_SIZE = 1000;
+	private static final ConversionService CONVERTER = DefaultConversionService.getSharedInstance();
+
+	private final RedisTemplate<String, Object> redisTemplate;
+	@Getter(AccessLevel.NONE)
+	private final ScriptExecutor<String> scriptExecutor;
+	@Getter(AccessLevel.NONE)
+	private final RedisScript<List<Long>> addScript;
+	@Getter(AccessLevel.NONE)
+	private final RedisScript<List<Long>> containsScript;
+	/**
+	 * redis key
+	 */
+	private final String name;
+	/**
+	 * bit 数
+	 */
+	private final long bitSize;
+	/**
+	 * hash 函数个数
+	 */
+	private final int hashFunctions;
+
+	/**
+	 * 布隆过滤器
+	 *
+	 * @param redisTemplate      redisTemplate
+	 * @param scriptRegistry     脚本注册表
+	 * @param name               redis key
+	 * @param expectedInsertions 预计元素数量
+	 * @param fpp                误判率，例如：0.01
+	 */
+	public RedisBloomFilter(RedisTemplate<String, Object> redisTemplate, RedisScriptRegistry scriptRegistry,
+							String name, long expectedInsertions, double fpp) {
+		Assert.isTrue(expectedInsertions > 0, "expectedInsertions must be positive");
+		Assert.isTrue(fpp > 0 && fpp < 1, "fpp must be between 0 and 1");
+		this.redisTemplate = redisTemplate;
+		this.scriptExecutor = scriptRegistry.executor(redisTemplate);
+		this.addScript = scriptRegistry.getListScript("codedreamplus_bloom_add");
+		this.containsScript = scriptRegistry.getListScript("codedreamplus_bloom_contains");
+		this.name = name;
+		this.bitSize = optimalBitSize(expectedInsertions, fpp);
+		Assert.isTrue(bitSize <= MAX_BIT_SIZE, "bloom filter is too large for a redis bitmap");
+		this.hashFunctions = optimalHashFunctions(expectedInsertions, bitSize);
+	}
+
+	/**
+	 * 添加元素
+	 *
+	 * @param element 元素
+	 * @return 是否新增，为 false 时元素可能已存在
+	 */
+	public boolean add(Object element) {
+		return addAll(Collections.singletonList(element)).get(0);
+	}
+
+	/**
+	 * 批量添加元素
+	 *
+	 * @param elements 元素
+	 * @return 每个元素是否新增
+	 */
+	public List<Boolean> addAll(Collection<?> elements) {
+		return execute(addScript, elements);
+	}
+
+	/**
+	 * 元素是否可能存在
+	 *
+	 * @param element 元素
+	 * @return 为 false 时一定不存在
+	 */
+	public boolean mightContain(Object element) {
+		return mightContainAll(Collections.singletonList(element)).get(0);
+	}
+
+	/**
+	 * 批量判断元素是否可能存在
+	 *
+	 * @param elements 元素
+	 * @return 每个元素是否可能存在
+	 */
+	public List<Boolean> mightContainAll(Collection<?> elements) {
+		return execute(containsScript, elements);
+	}
+
+	/**
+	 * 设置过期时间
+	 *
+	 * @param timeout 过期时间
+	 * @return 是否成功
+	 */
+	public Boolean expire(Duration timeout) {
+		return redisTemplate.expire(name, timeout.toMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * 删除布隆过滤器
+	 *
+	 * @return 是否成功
+	 */
+	public Boolean delete() {
+		return redisTemplate.delete(name);
+	}
+
+	private List<Boolean> execute(RedisScript<List<Long>> script, Collection<?> elements) {
+		List<Boolean> result = new ArrayList<>(elements.size());
+		List<String> keys = Collections.singletonList(name);
+		List<Object> batch = new ArrayList<>(Math.min(elements.size(), BATCH_SIZE));
+		for (Object element : elements) {
+			batch.add(element);
+			if (batch.size() == BATCH_SIZE) {
+				result.addAll(executeBatch(script, keys, batch));
+				batch.clear();
+			}
+		}
+		if (!batch.isEmpty()) {
+			result.addAll(executeBatch(script, keys, batch));
+		}
+		return result;
+	}
+
+	private List<Boolean> executeBatch(RedisScript<List<Long>> script, List<String> keys, List<Object> batch) {
+		Object[] args = new Object[batch.size() * hashFunctions + 1];
+		args[0] = String.valueOf(hashFunctions);
+		int index = 1;
+		for (Object element : batch) {
+			for (long offset : offsets(element)) {
+				args[index++] = String.valueOf(offset);
+			}
+		}
+		List<Long> values = scriptExecutor.execute(script, RedisSerializer.string(), null, keys, args);
+		List<Boolean> result = new ArrayList<>(batch.size());
+		for (int i = 0; i < batch.size(); i++) {
+			Long value = values == null ? null : values.get(i);
+			result.add(value != null && value == 1L);
+		}
+		return result;
+	}
+
+	/**
+	 * 计算元素对应的 bit 位置，双重 hash：h1 + i * h2
+	 *
+	 * @param element 元素
+	 * @return bit 位置
+	 */
+	private long[] offsets(Object element) {
+		long[] hash = murmur3(toBytes(element));
+		long combinedHash = hash[0];
+		long[] offsets = new long[hashFunctions];
+		for (int i = 0; i < hashFunctions; i++) {
+			offsets[i] = (combinedHash & Long.MAX_VALUE) % bitSize;
+			combinedHash += hash[1];
+		}
+		return offsets;
+	}
+
+	private static byte[] toBytes(Object element) {
+		Objects.requireNonNull(element, "bloom filter element is null");
+		if (element instanceof byte[]) {
+			return (byte[]) element;
+		}
+		String value = element instanceof String ? (String) element : CONVERTER.convert(element, String.class);
+		return value.getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static long optimalBitSize(long expectedInsertions, double fpp) {
+		return (long) Math.ceil(-expectedInsertions * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+	}
+
+	private static int optimalHashFunctions(long expectedInsertions, long bitSize) {
+		return Math.max(1, (int) Math.round((double) bitSize / expectedInsertions * Math.log(2)));
+	}
+
+	/**
+	 * MurmurHash3 x64 128 位
+	 *
+	 * @param data 数据
+	 * @return 两个 64 位 hash
+	 */
+	private static long[] murmur3(byte[] data) {
+		final long c1 = 0x87c37b91114253d5L;
+		final long c2 = 0x4cf5ad432745937fL;
+		int length = data.length;
+		int blocks = length / 16;
+		long h1 = 0;
+		long h2 = 0;
+		for (int i = 0; i < blocks; i++) {
+			long k1 = getLong(data, i * 16);
+			long k2 = getLong(data, i * 16 + 8);
+			k1 *= c1;
+			k1 = Long.rotateLeft(k1, 31);
+			k1 *= c2;
+			h1 ^= k1;
+			h1 = Long.rotateLeft(h1, 27);
+			h1 += h2;
+			h1 = h1 * 5 + 0x52dce729;
+			k2 *= c2;
+			k2 = Long.rotateLeft(k2, 33);
+			k2 *= c1;
+			h2 ^= k2;
+			h2 = Long.rotateLeft(h2, 31);
+			h2 += h1;
+			h2 = h2 * 5 + 0x38495ab5;
+		}
+		long k1 = 0;
+		long k2 = 0;
+		int tail = blocks * 16;
+		int remaining = length & 15;
+		// 尾部不足 16 字节，小端序：第 9 到 15 字节组成 k2，前 8 字节组成 k1
+		if (remaining > 8) {
+			for (int i = remaining - 1; i >= 8; i--) {
+				k2 ^= (long) (data[tail + i] & 0xff) << ((i - 8) * 8);
+			}
+			k2 *= c2;
+			k2 = Long.rotateLeft(k2, 33);
+			k2 *= c1;
+			h2 ^= k2;
+		}
+		if (remaining > 0) {
+			for (int i = Math.min(remaining, 8) - 1; i >= 0; i--) {
+				k1 ^= (long) (data[tail + i] & 0xff) << (i * 8);
+			}
+			k1 *= c1;
+			k1 = Long.rotateLeft(k1, 31);
+			k1 *= c2;
+			h1 ^= k1;
+		}
+		h1 ^= length;
+		h2 ^= length;
+		h1 += h2;
+		h2 += h1;
+		h1 = fmix64(h1);
+		h2 = fmix64(h2);
+		h1 += h2;
+		h2 += h1;
+		return new long[]{h1, h2};
+	}
+
+	private static long getLong(byte[] data, int index) {
+		return (data[index] & 0xffL)
+			| (data[index + 1] & 0xffL) << 8
+			| (data[index + 2] & 0xffL) << 16
+			| (data[index + 3] & 0xffL) << 24
+			| (data[index + 4] & 0xffL) << 32
+			| (data[index + 5] & 0xffL) << 40
+			| (data[index + 6] & 0xffL) << 48
+			| (data[index + 7] & 0xffL) << 56;
+	}
+
+	private static long fmix64(long k) {
+		k ^= k >>> 33;
+		k *= 0xff51afd7ed558ccdL;
+		k ^= k >>> 33;
+		k *= 0xc4ceb9fe1a85ec53L;
+		k ^= k >>> 33;
+		return k;
+	}
+}
@@ -1,6 +1,7 @@
 package com.codedreamplus.redis.cache;
 
 import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.ToString;
 import org.springframework.lang.Nullable;
@@ -15,6 +16,7 @@ import java.time.Duration;
 @Getter
 @ToString
 @AllArgsConstructor
+@EqualsAndHashCode(of = "key")
 public class CacheKey {
 	/**
 	 * redis key
@@ -25,9 +27,72 @@ public class CacheKey {
 	 */
 	@Nullable
 	private Duration expire;
+	/**
+	 * 生成该 key 的 ICacheKey，用于读取按前缀配置的缓存策略
+	 */
+	@Nullable
+	private ICacheKey source;
 
 	public CacheKey(String key) {
 		this.key = key;
 	}
 
+	public CacheKey(String key, @Nullable Duration expire) {
+		this(key, expire, null);
+	}
+
+	/**
+	 * 本地一级缓存超时时间，不会超过 redis 中的超时时间
+	 *
+	 * @return 为 null 时使用默认超时时间
+	 */
+	@Nullable
+	public Duration getNearExpire() {
+		Duration nearExpire = source == null ? null : source.getNearExpire();
+		if (nearExpire == null || expire == null) {
+			return nearExpire;
+		}
+		return nearExpire.compareTo(expire) > 0 ? expire : nearExpire;
+	}
+
+	/**
+	 * 分布式加载租约时间
+	 *
+	 * @return 为 null 时不开启
+	 */
+	@Nullable
+	public Duration getLoadingLease() {
+		return source == null ? null : source.getLoadingLease();
+	}
+
+	/**
+	 * 旧值保留时间
+	 *
+	 * @return 为 null 时不保留旧值
+	 */
+	@Nullable
+	public Duration getStaleExpire() {
+		return source == null || expire == null ? null : source.getStaleExpire();
+	}
+
+	/**
+	 * 提前刷新策略
+	 *
+	 * @return 为 null 时不开启
+	 */
+	@Nullable
+	public RefreshPolicy getRefreshPolicy() {
+		return source == null || expire == null ? null : source.getRefreshPolicy();
+	}
+
+	/**
+	 * 空值缓存时间
+	 *
+	 * @return 为 null 时不缓存空值
+	 */
+	@Nullable
+	public Duration getNullExpire() {
+		return source == null ? null : source.getNullExpire();
+	}
+
 }
@@ -0,0 +1,31 @@
+package com.codedreamplus.redis.cache;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 开启提前刷新时的缓存值封装，携带写入时间，读取时无需再查询 PTTL
+ *
+ * @author cool
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CacheValue implements Serializable {
+	private static final long serialVersionUID = 1L;
+	/**
+	 * 缓存值
+	 */
+	private Object value;
+	/**
+	 * 写入时间，毫秒
+	 */
+	private long writeTime;
+	/**
+	 * 加载耗时，毫秒
+	 */
+	private long loadCost;
+}
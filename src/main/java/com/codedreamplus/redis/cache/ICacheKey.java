@@ -31,6 +31,63 @@ public interface ICacheKey {
         return null;
     }
 
+    /**
+     * 本地一级缓存超时时间，为 null 时使用 near-cache.expire。
+     * 本地缓存只对 near-cache.prefixes 中配置的前缀开启，保证所有节点写入时都会广播失效
+     *
+     * @return 本地缓存超时时间
+     */
+    @Nullable
+    default Duration getNearExpire() {
+        return null;
+    }
+
+    /**
+     * 分布式加载租约时间，不为 null 时开启集群级别的加载保护：
+     * 只有拿到 {@code <key>:loading} 租约的节点执行加载器，其他节点读取旧值或等待
+     *
+     * @return 租约时间
+     */
+    @Nullable
+    default Duration getLoadingLease() {
+        return null;
+    }
+
+    /**
+     * 旧值保留时间，不为 null 时写入缓存会同时写入 {@code <key>:stale}，超时时间为 超时时间 + 旧值保留时间，
+     * 其他节点正在加载时返回旧值
+     *
+     * @return 旧值保留时间
+     */
+    @Nullable
+    default Duration getStaleExpire() {
+        return null;
+    }
+
+    /**
+     * 提前刷新策略，不为 null 时缓存值会携带写入时间，临近过期时由 get(cacheKey, loader) 异步刷新，
+     * 需要设置超时时间
+     *
+     * @return 提前刷新策略
+     * @see RefreshPolicy#window(Duration)
+     * @see RefreshPolicy#xFetch(double)
+     */
+    @Nullable
+    default RefreshPolicy getRefreshPolicy() {
+        return null;
+    }
+
+    /**
+     * 空值缓存时间，不为 null 时加载器返回 null 会写入空值，在该时间内 get 直接返回 null，不再执行加载器，
+     * 防止缓存穿透，建议远小于超时时间
+     *
+     * @return 空值缓存时间
+     */
+    @Nullable
+    default Duration getNullExpire() {
+        return null;
+    }
+
     /**
      * 组装 cache key
      *
@@ -47,7 +104,7 @@ public interface ICacheKey {
             key = prefix.concat(StringUtils.join(suffix, ":"));
         }
         Duration expire = this.getExpire();
-        return expire == null ? new CacheKey(key) : new CacheKey(key, expire);
+        return new CacheKey(key, expire, this);
     }
 
 }
@@ -0,0 +1,391 @@
+package com.codedreamplus.redis.cache;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.lang.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 进程内一级缓存（near cache），redis 为二级缓存
+ *
+ * <p>
+ * 1. 只缓存配置了的 key 前缀，适合读多写少的数据，例如：配置、字典
+ * 2. 按条数淘汰（分段 LRU），每条数据有独立的超时时间，不超过 redis 中的剩余过期时间
+ * 3. 通过 redis pub/sub 广播失效消息，各节点收到后删除本地数据
+ * 4. 热点 key 只在探测到它的节点上临时开启，并广播给所有节点，写入这些 key 时才广播失效消息
+ * </p>
+ *
+ * @author cool
+ */
+@Slf4j
+public class NearCache implements MessageListener {
+	/**
+	 * 分段数，降低锁竞争
+	 */
+	private static final int SEGMENT_COUNT = 16;
+	private final StringRedisTemplate redisTemplate;
+	/**
+	 * 失效通知的 channel
+	 */
+	@Getter
+	private final String channel;
+	/**
+	 * 热点 key 开启通知的 channel
+	 */
+	@Getter
+	private final String pinChannel;
+	/**
+	 * 默认超时时间
+	 */
+	private final Duration defaultExpire;
+	/**
+	 * 开启本地缓存的 key 前缀，来自配置，所有节点一致，保证任一节点写入时都会广播失效
+	 */
+	private final List<String> prefixes;
+	/**
+	 * 热点 key 临时开启本地缓存，value 为截止时间和本地缓存超时时间
+	 */
+	private final Map<String, Pin> pinned = new ConcurrentHashMap<>();
+	/**
+	 * 任一节点临时开启了本地缓存的 key，value 为截止时间，写入这些 key 时需要广播失效
+	 */
+	private final Map<String, Long> pinnedRemote = new ConcurrentHashMap<>();
+	private final Segment[] segments;
+	private final LongAdder hitCount = new LongAdder();
+	private final LongAdder missCount = new LongAdder();
+
+	public NearCache(StringRedisTemplate redisTemplate, String channel, int maximumSize,
+					 Duration defaultExpire, Collection<String> prefixes) {
+		this.redisTemplate = redisTemplate;
+		this.channel = channel;
+		this.pinChannel = channel + ":pin";
+		this.defaultExpire = defaultExpire;
+		this.prefixes = new ArrayList<>(prefixes);
+		int segmentSize = Math.max(1, maximumSize / SEGMENT_COUNT);
+		this.segments = new Segment[SEGMENT_COUNT];
+		for (int i = 0; i < SEGMENT_COUNT; i++) {
+			this.segments[i] = new Segment(segmentSize);
+		}
+	}
+
+	/**
+	 * key 是否开启了本地缓存
+	 *
+	 * @param key redis key
+	 * @return 是否开启
+	 */
+	public boolean isEnabled(String key) {
+		for (String prefix : prefixes) {
+			if (key.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return pinnedExpire(key) != null;
+	}
+
+	/**
+	 * 写入 key 后是否需要广播失效
+	 *
+	 * <p>
+	 * 配置的前缀所有节点一致；热点 key 开启时会通过 pinChannel 通知所有节点，
+	 * 只有任一节点开启了本地缓存的 key 才需要广播
+	 * </p>
+	 *
+	 * @param key redis key
+	 * @return 是否需要广播
+	 */
+	public boolean shouldInvalidate(String key) {
+		if (isEnabled(key)) {
+			return true;
+		}
+		if (pinnedRemote.isEmpty()) {
+			return false;
+		}
+		Long until = pinnedRemote.get(key);
+		if (until == null) {
+			return false;
+		}
+		if (until - System.nanoTime() <= 0) {
+			pinnedRemote.remove(key, until);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 临时为单个 key 开启本地缓存，用于热点 key 自动升级
+	 *
+	 * <p>
+	 * 开启通知到达其他节点之前，其他节点写入该 key 不会广播失效，本地最多缓存 expire 时间的旧数据
+	 * </p>
+	 *
+	 * @param key      redis key
+	 * @param duration 开启时长
+	 * @param expire   本地缓存超时时间
+	 */
+	public void pin(String key, Duration duration, Duration expire) {
+		long until = System.nanoTime() + duration.toNanos();
+		pinnedRemote.put(key, until);
+		pinned.put(key, new Pin(until, expire));
+		try {
+			redisTemplate.convertAndSend(pinChannel, duration.toMillis() + ":" + key);
+		} catch (Exception e) {
+			log.warn("near cache pin publish failed, key:{}", key, e);
+		}
+	}
+
+	/**
+	 * 临时开启本地缓存的 key 数量
+	 *
+	 * @return 数量
+	 */
+	public int pinnedSize() {
+		return pinned.size();
+	}
+
+	/**
+	 * 临时开启的 key 的本地缓存超时时间，未开启或已过期时返回 null
+	 */
+	@Nullable
+	private Duration pinnedExpire(String key) {
+		if (pinned.isEmpty()) {
+			return null;
+		}
+		Pin pin = pinned.get(key);
+		if (pin == null) {
+			return null;
+		}
+		if (pin.until - System.nanoTime() <= 0) {
+			pinned.remove(key, pin);
+			return null;
+		}
+		return pin.expire;
+	}
+
+	/**
+	 * 读取本地缓存，未命中时从 redis 中读取并写入本地缓存
+	 *
+	 * @param key    redis key
+	 * @param loader 从 redis 读取值和剩余过期时间
+	 * @param expire 本地缓存超时时间，为 null 时使用默认超时时间，都不会超过 redis 中的剩余过期时间
+	 * @return 缓存值
+	 */
+	@Nullable
+	public Object get(String key, Supplier<Loaded> loader, @Nullable Duration expire) {
+		Segment segment = segmentFor(key);
+		long now = System.nanoTime();
+		Entry entry;
+		long version;
+		synchronized (segment) {
+			entry = segment.get(key);
+			version = segment.version;
+		}
+		if (entry != null && entry.expireAt - now > 0) {
+			hitCount.increment();
+			return entry.value;
+		}
+		missCount.increment();
+		Loaded loaded = loader.get();
+		Object value = loaded.value;
+		if (value == null) {
+			return null;
+		}
+		long ttlNanos;
+		if (expire != null) {
+			ttlNanos = expire.toNanos();
+		} else {
+			Duration pinnedExpire = pinnedExpire(key);
+			ttlNanos = (pinnedExpire == null ? defaultExpire : pinnedExpire).toNanos();
+		}
+		// 小于 0 时 redis 中没有过期时间
+		if (loaded.ttlMillis >= 0) {
+			ttlNanos = Math.min(ttlNanos, TimeUnit.MILLISECONDS.toNanos(loaded.ttlMillis));
+		}
+		Entry newEntry = new Entry(value, System.nanoTime() + ttlNanos);
+		synchronized (segment) {
+			// 读取期间同一分段发生了失效，不写入本地缓存
+			if (version == segment.version) {
+				segment.put(key, newEntry);
+			}
+		}
+		return value;
+	}
+
+	/**
+	 * 删除本地缓存，并广播到其他节点
+	 *
+	 * @param key redis key
+	 */
+	public void invalidate(String key) {
+		invalidateLocal(key);
+		try {
+			redisTemplate.convertAndSend(channel, key);
+		} catch (Exception e) {
+			log.warn("near cache invalidate publish failed, key:{}", key, e);
+		}
+	}
+
+	/**
+	 * 只删除本节点的本地缓存
+	 *
+	 * @param key redis key
+	 */
+	public void invalidateLocal(String key) {
+		Segment segment = segmentFor(key);
+		synchronized (segment) {
+			segment.version++;
+			segment.remove(key);
+		}
+	}
+
+	/**
+	 * 清空本地缓存
+	 */
+	public void clear() {
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				segment.version++;
+				segment.clear();
+			}
+		}
+	}
+
+	@Override
+	public void onMessage(Message message, @Nullable byte[] pattern) {
+		String body = new String(message.getBody(), StandardCharsets.UTF_8);
+		if (pinChannel.equals(new String(message.getChannel(), StandardCharsets.UTF_8))) {
+			onPin(body);
+		} else {
+			invalidateLocal(body);
+		}
+	}
+
+	/**
+	 * 其他节点开启了热点 key，消息格式为 开启时长毫秒:key
+	 */
+	private void onPin(String body) {
+		int index = body.indexOf(':');
+		if (index <= 0) {
+			return;
+		}
+		long now = System.nanoTime();
+		try {
+			long until = now + TimeUnit.MILLISECONDS.toNanos(Long.parseLong(body.substring(0, index)));
+			pinnedRemote.merge(body.substring(index + 1), until, Math::max);
+		} catch (NumberFormatException e) {
+			log.warn("near cache pin message invalid: {}", body);
+			return;
+		}
+		// 顺带清理已过期的 key，没有写入的热点 key 不会在 shouldInvalidate 中被清理
+		pinnedRemote.values().removeIf(until -> until - now <= 0);
+	}
+
+	/**
+	 * 本地缓存条数
+	 *
+	 * @return 条数
+	 */
+	public long size() {
+		long size = 0;
+		for (Segment segment : segments) {
+			synchronized (segment) {
+				size += segment.size();
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * 命中次数
+	 *
+	 * @return 命中次数
+	 */
+	public long getHitCount() {
+		return hitCount.sum();
+	}
+
+	/**
+	 * 未命中次数
+	 *
+	 * @return 未命中次数
+	 */
+	public long getMissCount() {
+		return missCount.sum();
+	}
+
+	private Segment segmentFor(String key) {
+		int h = key.hashCode();
+		h ^= (h >>> 16);
+		return segments[h & (SEGMENT_COUNT - 1)];
+	}
+
+	/**
+	 * 从 redis 读取的值和剩余过期时间
+	 */
+	public static class Loaded {
+		@Nullable
+		private final Object value;
+		/**
+		 * 剩余过期时间，毫秒，小于 0 时没有过期时间
+		 */
+		private final long ttlMillis;
+
+		public Loaded(@Nullable Object value, long ttlMillis) {
+			this.value = value;
+			this.ttlMillis = ttlMillis;
+		}
+	}
+
+	private static class Entry {
+		private final Object value;
+		private final long expireAt;
+
+		private Entry(Object value, long expireAt) {
+			this.value = value;
+			this.expireAt = expireAt;
+		}
+	}
+
+	private static class Pin {
+		private final long until;
+		private final Duration expire;
+
+		private Pin(long until, Duration expire) {
+			this.until = until;
+			this.expire = expire;
+		}
+	}
+
+	private static class Segment extends LinkedHashMap<String, Entry> {
+		private static final long serialVersionUID = 1L;
+		private final int maximumSize;
+		/**
+		 * 失效版本号，在分段锁内修改，读取 redis 期间发生过失效时不写入本地缓存，避免缓存旧数据
+		 */
+		private long version;
+
+		private Segment(int maximumSize) {
+			super(16, 0.75F, true);
+			this.maximumSize = maximumSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+			return size() > maximumSize;
+		}
+	}
+}
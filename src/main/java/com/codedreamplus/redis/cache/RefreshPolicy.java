@@ -0,0 +1,67 @@
+package com.codedreamplus.redis.cache;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 提前刷新策略，缓存临近过期时异步重新加载，调用方继续拿到当前值
+ *
+ * @author cool
+ */
+@FunctionalInterface
+public interface RefreshPolicy {
+
+	/**
+	 * 是否需要刷新
+	 *
+	 * @param cacheValue 缓存值
+	 * @param expireAt   过期时间，毫秒
+	 * @param now        当前时间，毫秒
+	 * @return 是否刷新
+	 */
+	boolean shouldRefresh(CacheValue cacheValue, long expireAt, long now);
+
+	/**
+	 * 固定窗口，剩余时间小于窗口时刷新
+	 *
+	 * @param window 刷新窗口
+	 * @return RefreshPolicy
+	 */
+	static RefreshPolicy window(Duration window) {
+		long windowMillis = window.toMillis();
+		return (cacheValue, expireAt, now) -> expireAt - now <= windowMillis;
+	}
+
+	/**
+	 * XFetch 概率提前过期，越接近过期、加载耗时越长，刷新的概率越大。
+	 * 通过 set(CacheKey, Object) 写入的值没有加载耗时，按剩余时间小于超时时间的 1/10 刷新
+	 *
+	 * @param beta 大于 1 时更倾向提前刷新，一般为 1
+	 * @return RefreshPolicy
+	 */
+	static RefreshPolicy xFetch(double beta) {
+		return xFetch(beta, null);
+	}
+
+	/**
+	 * XFetch 概率提前过期，越接近过期、加载耗时越长，刷新的概率越大
+	 *
+	 * @param beta           大于 1 时更倾向提前刷新，一般为 1
+	 * @param fallbackWindow 没有加载耗时（通过 set(CacheKey, Object) 写入）时的固定窗口，为 null 时使用超时时间的 1/10
+	 * @return RefreshPolicy
+	 */
+	static RefreshPolicy xFetch(double beta, @Nullable Duration fallbackWindow) {
+		return (cacheValue, expireAt, now) -> {
+			long loadCost = cacheValue.getLoadCost();
+			if (loadCost <= 0) {
+				long windowMillis = fallbackWindow == null ? (expireAt - cacheValue.getWriteTime()) / 10 : fallbackWindow.toMillis();
+				return expireAt - now <= windowMillis;
+			}
+			double random = ThreadLocalRandom.current().nextDouble();
+			double gap = -loadCost * beta * Math.log(random);
+			return now + gap >= expireAt;
+		};
+	}
+}
@@ -0,0 +1,102 @@
+package com.codedreamplus.redis.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * 进程内加载合并（single flight）
+ *
+ * <p>
+ * 同一个 key 同时只有一个线程执行加载器，其他线程等待其结果，避免热点 key 失效时大量请求同时击穿到数据库。
+ * 等待超过超时时间后，等待线程自行执行加载器。
+ * </p>
+ *
+ * @author cool
+ */
+@Slf4j
+public class SingleFlight {
+	private final ConcurrentMap<Object, CompletableFuture<Object>> calls = new ConcurrentHashMap<>(64);
+	/**
+	 * 等待超时时间
+	 */
+	private final Duration timeout;
+
+	public SingleFlight(Duration timeout) {
+		this.timeout = timeout;
+	}
+
+	/**
+	 * 合并执行加载器
+	 *
+	 * @param key    key
+	 * @param loader 加载器
+	 * @param <T>    泛型
+	 * @return 加载结果
+	 */
+	public <T> T execute(Object key, Supplier<T> loader) {
+		try {
+			return call(key, loader::get);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * 合并执行加载器
+	 *
+	 * @param key    key
+	 * @param loader 加载器
+	 * @param <T>    泛型
+	 * @return 加载结果
+	 * @throws Exception 加载器抛出的异常
+	 */
+	@SuppressWarnings("unchecked")
+	public <T> T call(Object key, Callable<T> loader) throws Exception {
+		CompletableFuture<Object> future = new CompletableFuture<>();
+		CompletableFuture<Object> running = calls.putIfAbsent(key, future);
+		if (running != null) {
+			return (T) await(key, running, loader);
+		}
+		try {
+			T value = loader.call();
+			future.complete(value);
+			return value;
+		} catch (Throwable e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			calls.remove(key, future);
+		}
+	}
+
+	private Object await(Object key, CompletableFuture<Object> running, Callable<?> loader) throws Exception {
+		try {
+			return running.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			} else if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw e;
+		} catch (TimeoutException e) {
+			log.warn("single flight wait timeout, key:{}, load by self", key);
+			return loader.call();
+		}
+	}
+
+	/**
+	 * 正在加载中的 key 数量
+	 *
+	 * @return 数量
+	 */
+	public int inFlight() {
+		return calls.size();
+	}
+}
@@ -0,0 +1,57 @@
+package com.codedreamplus.redis.config;
+
+import com.codedreamplus.redis.CodeDreamPlusAsyncRedis;
+import com.codedreamplus.redis.cache.NearCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步 redis 客户端配置，只在使用 Lettuce 连接工厂时生效
+ *
+ * <p>
+ * 本配置通过包扫描加载，早于 RedisAutoConfiguration，不能用 ConditionalOnBean 判断连接工厂，
+ * 因此按 Lettuce 类是否存在开启（此时 spring boot 默认创建 Lettuce 连接工厂），创建时再检查连接工厂类型
+ * </p>
+ *
+ * @author cool
+ */
+@Configuration
+@AutoConfigureAfter(RedisAutoConfiguration.class)
+@ConditionalOnClass(name = "io.lettuce.core.RedisClient")
+@ConditionalOnProperty(value = "codedreamplus.redis.async.enabled", havingValue = "true", matchIfMissing = true)
+public class AsyncRedisConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	public CodeDreamPlusAsyncRedis codeDreamAsyncRedis(RedisConnectionFactory connectionFactory,
+													   RedisTemplate<String, Object> redisTemplate,
+													   ObjectProvider<NearCache> nearCache,
+													   CodeDreamPlusRedisProperties properties) {
+		Assert.isInstanceOf(LettuceConnectionFactory.class, connectionFactory,
+			"CodeDreamPlusAsyncRedis requires a LettuceConnectionFactory, set codedreamplus.redis.async.enabled=false to disable it");
+		CodeDreamPlusRedisProperties.AsyncProperties async = properties.getAsync();
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("codedreamplus-async-");
+		threadFactory.setDaemon(true);
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(async.getThreads(), async.getThreads(),
+			60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(async.getQueueCapacity()), threadFactory);
+		executor.allowCoreThreadTimeOut(true);
+		CodeDreamPlusAsyncRedis asyncRedis = new CodeDreamPlusAsyncRedis(redisTemplate, executor);
+		asyncRedis.setNearCache(nearCache.getIfAvailable());
+		return asyncRedis;
+	}
+}
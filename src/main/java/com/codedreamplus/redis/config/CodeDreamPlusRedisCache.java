@@ -0,0 +1,46 @@
+package com.codedreamplus.redis.config;
+
+import com.codedreamplus.redis.cache.SingleFlight;
+import org.springframework.data.redis.cache.RedisCache;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheWriter;
+
+import java.util.concurrent.Callable;
+
+/**
+ * 扩展 RedisCache，@Cacheable(sync = true) 时按 key 合并加载，替代 RedisCache 整个 cache 级别的 synchronized
+ *
+ * @author cool
+ */
+public class CodeDreamPlusRedisCache extends RedisCache {
+	private final SingleFlight singleFlight;
+
+	protected CodeDreamPlusRedisCache(String name, RedisCacheWriter cacheWriter,
+									  RedisCacheConfiguration cacheConfig, SingleFlight singleFlight) {
+		super(name, cacheWriter, cacheConfig);
+		this.singleFlight = singleFlight;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T get(Object key, Callable<T> valueLoader) {
+		ValueWrapper result = get(key);
+		if (result != null) {
+			return (T) result.get();
+		}
+		try {
+			return singleFlight.call(createCacheKey(key), () -> {
+				// 上一个加载线程可能已经写入
+				ValueWrapper cached = get(key);
+				if (cached != null) {
+					return (T) cached.get();
+				}
+				T value = valueLoader.call();
+				put(key, value);
+				return value;
+			});
+		} catch (Exception e) {
+			throw new ValueRetrievalException(key, valueLoader, e);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package com.codedreamplus.redis.config;
 
+import com.codedreamplus.redis.cache.SingleFlight;
 import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.cache.CacheManagerCustomizers;
@@ -54,7 +55,8 @@ public class CodeDreamPlusRedisCacheAutoConfiguration {
 
 	@Primary
 	@Bean("redisCacheManager")
-	public RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory) {
+	public RedisCacheManager redisCacheManager(RedisConnectionFactory connectionFactory,
+											   ObjectProvider<SingleFlight> singleFlight) {
 		RedisCacheWriter redisCacheWriter = RedisCacheWriter.nonLockingRedisCacheWriter(connectionFactory);
 		RedisCacheConfiguration cacheConfiguration = this.determineConfiguration();
 		List<String> cacheNames = this.cacheProperties.getCacheNames();
@@ -66,7 +68,8 @@ public class CodeDreamPlusRedisCacheAutoConfiguration {
 		}
 		boolean allowInFlightCacheCreation = true;
 		boolean enableTransactions = false;
-		RedisAutoCacheManager cacheManager = new RedisAutoCacheManager(redisCacheWriter, cacheConfiguration, initialCaches, allowInFlightCacheCreation);
+		RedisAutoCacheManager cacheManager = new RedisAutoCacheManager(redisCacheWriter, cacheConfiguration, initialCaches,
+			allowInFlightCacheCreation, singleFlight.getIfAvailable());
 		cacheManager.setTransactionAware(enableTransactions);
 		return this.customizerInvoker.customize(cacheManager);
 	}
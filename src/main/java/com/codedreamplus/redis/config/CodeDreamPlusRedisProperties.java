@@ -1,9 +1,16 @@
 package com.codedreamplus.redis.config;
 
+import com.codedreamplus.redis.ratelimiter.RateLimiterFallbackPolicy;
 import lombok.Getter;
 import lombok.Setter;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Getter
 @Setter
 @ConfigurationProperties("codedreamplus.redis")
@@ -13,6 +20,54 @@ public class CodeDreamPlusRedisProperties {
 	 * 序列化方式
 	 */
 	private SerializerType serializerType = SerializerType.ProtoStuff;
+	/**
+	 * serializerType 为 Primitive 时，基本类型以外的值使用的序列化方式，只支持 ProtoStuff、JDK，默认: ProtoStuff
+	 */
+	private SerializerType primitiveDelegate = SerializerType.ProtoStuff;
+	/**
+	 * ProtoStuff 序列化
+	 */
+	private ProtoStuffProperties protoStuff = new ProtoStuffProperties();
+	/**
+	 * value 压缩
+	 */
+	private CompressionProperties compression = new CompressionProperties();
+	/**
+	 * 每次 pipeline 的最大命令数，超出时自动拆分，默认: 1000
+	 */
+	private int pipelineBatchSize = 1000;
+	/**
+	 * KEYS 命令保护
+	 */
+	private KeysGuardProperties keysGuard = new KeysGuardProperties();
+	/**
+	 * 本地一级缓存
+	 */
+	private NearCacheProperties nearCache = new NearCacheProperties();
+	/**
+	 * 加载合并
+	 */
+	private SingleFlightProperties singleFlight = new SingleFlightProperties();
+	/**
+	 * 提前刷新
+	 */
+	private RefreshProperties refresh = new RefreshProperties();
+	/**
+	 * 热点 key 探测
+	 */
+	private HotKeyProperties hotKey = new HotKeyProperties();
+	/**
+	 * 异步客户端
+	 */
+	private AsyncProperties async = new AsyncProperties();
+	/**
+	 * 响应式客户端
+	 */
+	private ReactiveProperties reactive = new ReactiveProperties();
+	/**
+	 * 分布式限流
+	 */
+	private RateLimiterProperties rateLimiter = new RateLimiterProperties();
 
 	public enum SerializerType {
 		/**
@@ -26,6 +81,259 @@ public class CodeDreamPlusRedisProperties {
 		/**
 		 * jdk 序列化
 		 */
-		JDK
+		JDK,
+		/**
+		 * String、Long、Integer、Double、byte[] 使用 redis 原生格式，其余类型使用 primitiveDelegate
+		 */
+		Primitive
+	}
+
+	@Getter
+	@Setter
+	public static class ProtoStuffProperties {
+		/**
+		 * 类名和类型 ID，已注册的类序列化时写入类型 ID 代替类名
+		 */
+		private Map<String, Integer> typeIds = new LinkedHashMap<>();
+		/**
+		 * 扫描 @ProtoStuffType 注解的包
+		 */
+		private List<String> scanPackages = new ArrayList<>();
+	}
+
+	@Getter
+	@Setter
+	public static class CompressionProperties {
+		/**
+		 * 是否开启压缩，默认: false，开启前写入的值仍可读取
+		 */
+		private boolean enabled = false;
+		/**
+		 * 压缩阈值，序列化后超过该字节数才压缩，默认: 1024
+		 */
+		private int threshold = 1024;
+		/**
+		 * 压缩级别，1（最快）到 9（最小），-1 为默认级别，默认: -1
+		 */
+		private int level = -1;
+	}
+
+	@Getter
+	@Setter
+	public static class KeysGuardProperties {
+		/**
+		 * 执行 KEYS 前检查 DBSIZE，超过该值时告警或拒绝，开启后每次 keys 多一次 DBSIZE 往返，小于等于 0 时不检查，默认: 0
+		 */
+		private long maxDbSize = 0L;
+		/**
+		 * 超过 maxDbSize 时是否拒绝执行，默认: false 只告警
+		 */
+		private boolean reject = false;
+	}
+
+	@Getter
+	@Setter
+	public static class NearCacheProperties {
+		/**
+		 * 是否开启本地一级缓存，默认: false
+		 */
+		private boolean enabled = false;
+		/**
+		 * 本地缓存最大条数，默认: 10000
+		 */
+		private int maximumSize = 10000;
+		/**
+		 * 本地缓存默认超时时间，默认: 30s，不会超过 redis 中的剩余过期时间
+		 */
+		private Duration expire = Duration.ofSeconds(30);
+		/**
+		 * 开启本地缓存的 key 前缀，请在所有节点上配置一致，ICacheKey 可以通过 getNearExpire 设置该前缀的本地超时时间
+		 */
+		private List<String> prefixes = new ArrayList<>();
+		/**
+		 * 失效通知的 redis channel
+		 */
+		private String channel = "codedreamplus:near-cache:invalidate";
+	}
+
+	@Getter
+	@Setter
+	public static class SingleFlightProperties {
+		/**
+		 * 是否开启加载合并，默认: true
+		 */
+		private boolean enabled = true;
+		/**
+		 * 等待其他线程加载的超时时间，超时后自行加载，默认: 3s
+		 */
+		private Duration timeout = Duration.ofSeconds(3);
+	}
+
+	@Getter
+	@Setter
+	public static class RefreshProperties {
+		/**
+		 * 是否开启提前刷新，默认: true，需要 ICacheKey 配置 RefreshPolicy
+		 */
+		private boolean enabled = true;
+		/**
+		 * 刷新线程数，默认: 2
+		 */
+		private int threads = 2;
+		/**
+		 * 刷新任务队列大小，队列满时放弃本次刷新，默认: 1000
+		 */
+		private int queueCapacity = 1000;
+	}
+
+	@Getter
+	@Setter
+	public static class HotKeyProperties {
+		/**
+		 * 是否开启热点 key 探测，默认: false
+		 */
+		private boolean enabled = false;
+		/**
+		 * 采样率，(0, 1]，默认: 0.01
+		 */
+		private double sampleRate = 0.01;
+		/**
+		 * 保留的热点 key 个数，默认: 20
+		 */
+		private int topK = 20;
+		/**
+		 * Count-Min Sketch 哈希函数个数，默认: 4
+		 */
+		private int sketchDepth = 4;
+		/**
+		 * Count-Min Sketch 每行计数器个数，默认: 4096
+		 */
+		private int sketchWidth = 4096;
+		/**
+		 * 统计周期，默认: 10s
+		 */
+		private Duration interval = Duration.ofSeconds(10);
+		/**
+		 * 每个周期访问次数超过该值时临时开启本地缓存，需要开启 near-cache，小于等于 0 时不开启，默认: 0。
+		 * 开启后所有写入都会广播本地缓存失效，请在所有节点上配置一致
+		 */
+		private long pinThreshold = 0L;
+		/**
+		 * 热点 key 的本地缓存超时时间，默认: 1s
+		 */
+		private Duration pinExpire = Duration.ofSeconds(1);
+	}
+
+	@Getter
+	@Setter
+	public static class AsyncProperties {
+		/**
+		 * 是否开启异步客户端 CodeDreamPlusAsyncRedis，默认: true，需要使用 Lettuce
+		 */
+		private boolean enabled = true;
+		/**
+		 * 反序列化和回调线程数，默认: cpu 核数
+		 */
+		private int threads = Runtime.getRuntime().availableProcessors();
+		/**
+		 * 任务队列大小，队列满时命令以异常结束，默认: 10000
+		 */
+		private int queueCapacity = 10000;
+	}
+
+	@Getter
+	@Setter
+	public static class ReactiveProperties {
+		/**
+		 * 是否开启响应式客户端 ReactiveCodeDreamPlusRedis 和 ReactiveRateLimiterClient，默认: true，需要使用 Lettuce
+		 */
+		private boolean enabled = true;
+	}
+
+	@Getter
+	@Setter
+	public static class RateLimiterProperties {
+		/**
+		 * 是否开启 redis 分布式限流，默认: false
+		 */
+		private boolean enabled = false;
+		/**
+		 * 令牌租约
+		 */
+		private LeaseProperties lease = new LeaseProperties();
+		/**
+		 * redis 不可用时的降级
+		 */
+		private FallbackProperties fallback = new FallbackProperties();
+	}
+
+	@Getter
+	@Setter
+	public static class LeaseProperties {
+		/**
+		 * 是否开启令牌租约，开启后令牌桶算法批量预取令牌在本地发放，默认: false
+		 */
+		private boolean enabled = false;
+		/**
+		 * 预取令牌的有效期，过期未用完的令牌作废，不超过限流的 ttl，默认: 1s
+		 */
+		private Duration leaseTime = Duration.ofSeconds(1);
+		/**
+		 * 单个节点每次最多预取 max 的比例，默认: 0.1
+		 */
+		private double maxBatchRatio = 0.1;
+		/**
+		 * 剩余令牌低于批量的该比例时异步预取下一批，默认: 0.25
+		 */
+		private double refillRatio = 0.25;
+	}
+
+	@Getter
+	@Setter
+	public static class FallbackProperties {
+		/**
+		 * 是否开启降级，开启后 redis 异常、超时或熔断时按 policy 判断，不再抛出异常，默认: false
+		 */
+		private boolean enabled = false;
+		/**
+		 * 降级策略，默认: LOCAL 本地令牌桶
+		 */
+		private RateLimiterFallbackPolicy policy = RateLimiterFallbackPolicy.LOCAL;
+		/**
+		 * 集群的节点数，LOCAL 降级时每个节点的速率为 max / nodeCount，默认: 1
+		 */
+		private int nodeCount = 1;
+		/**
+		 * 请求线程等待 redis 的最长时间，配置后 redis 调用在单独的线程池中执行，默认: 空，使用 redis 命令的超时时间
+		 */
+		private Duration timeout;
+		/**
+		 * 配置了 timeout 时执行 redis 调用的线程数，默认: 16
+		 */
+		private int threads = 16;
+		/**
+		 * 配置了 timeout 时线程池的队列容量，队列满时直接降级，默认: 1024
+		 */
+		private int queueCapacity = 1024;
+		/**
+		 * 耗时超过该值的调用按失败统计，默认: 100ms
+		 */
+		private Duration slowCallThreshold = Duration.ofMillis(100);
+		/**
+		 * 失败比例达到该值时熔断，默认: 0.5
+		 */
+		private double failureRateThreshold = 0.5;
+		/**
+		 * 统计窗口内至少调用该次数才计算失败比例，默认: 20
+		 */
+		private int minimumCalls = 20;
+		/**
+		 * 统计窗口，默认: 10s
+		 */
+		private Duration window = Duration.ofSeconds(10);
+		/**
+		 * 熔断持续时间，之后放行一个探测请求，默认: 5s
+		 */
+		private Duration openDuration = Duration.ofSeconds(5);
 	}
 }
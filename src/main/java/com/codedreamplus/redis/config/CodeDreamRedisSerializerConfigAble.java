@@ -1,6 +1,9 @@
 package com.codedreamplus.redis.config;
 
-import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import com.codedreamplus.redis.serializer.CompressionRedisSerializer;
+import com.codedreamplus.redis.serializer.NullValueRedisSerializer;
+import com.codedreamplus.redis.serializer.PrimitiveRedisSerializer;
+import com.codedreamplus.redis.serializer.TypedJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.JdkSerializationRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializer;
 
@@ -28,6 +31,24 @@ public interface CodeDreamRedisSerializerConfigAble {
 	 */
 	default RedisSerializer<Object> defaultRedisSerializer(CodeDreamPlusRedisProperties properties) {
 		CodeDreamPlusRedisProperties.SerializerType serializerType = properties.getSerializerType();
+		if (CodeDreamPlusRedisProperties.SerializerType.Primitive == serializerType) {
+			// json 输出的数字会被当作基本类型读取，只支持 ProtoStuff、jdk，ProtoStuff 由 ProtoStuffSerializerConfiguration 创建
+			if (CodeDreamPlusRedisProperties.SerializerType.JDK != properties.getPrimitiveDelegate()) {
+				throw new IllegalStateException("codedreamplus.redis.primitive-delegate must be protostuff (io.protostuff on the classpath) or jdk, but was "
+					+ properties.getPrimitiveDelegate());
+			}
+			return new PrimitiveRedisSerializer(defaultRedisSerializer(CodeDreamPlusRedisProperties.SerializerType.JDK));
+		}
+		return defaultRedisSerializer(serializerType);
+	}
+
+	/**
+	 * 按类型创建默认的序列化方式，ProtoStuff 不可用时使用 json
+	 *
+	 * @param serializerType 序列化方式
+	 * @return RedisSerializer
+	 */
+	default RedisSerializer<Object> defaultRedisSerializer(CodeDreamPlusRedisProperties.SerializerType serializerType) {
 		if (CodeDreamPlusRedisProperties.SerializerType.JDK == serializerType) {
 			/**
 			 * SpringBoot扩展了ClassLoader，进行分离打包的时候，使用到JdkSerializationRedisSerializer的地方
@@ -40,6 +61,21 @@ public interface CodeDreamRedisSerializerConfigAble {
 			ClassLoader classLoader = this.getClass().getClassLoader();
 			return new JdkSerializationRedisSerializer(classLoader);
 		}
-		return new GenericJackson2JsonRedisSerializer();
+		return new TypedJackson2JsonRedisSerializer();
+	}
+
+	/**
+	 * 包装序列化方式，按配置压缩，并统一空值缓存的编码
+	 *
+	 * @param redisSerializer 序列化方式
+	 * @param properties      配置
+	 * @return RedisSerializer
+	 */
+	default RedisSerializer<Object> decorate(RedisSerializer<Object> redisSerializer, CodeDreamPlusRedisProperties properties) {
+		CodeDreamPlusRedisProperties.CompressionProperties compression = properties.getCompression();
+		if (compression.isEnabled()) {
+			redisSerializer = new CompressionRedisSerializer(redisSerializer, compression.getThreshold(), compression.getLevel());
+		}
+		return new NullValueRedisSerializer(redisSerializer);
 	}
 }
@@ -0,0 +1,35 @@
+package com.codedreamplus.redis.config;
+
+import com.codedreamplus.redis.cache.NearCache;
+import com.codedreamplus.redis.hotkey.HotKeyDetector;
+import com.codedreamplus.redis.hotkey.HotKeyListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 热点 key 探测配置
+ *
+ * @author cool
+ */
+@Configuration
+@ConditionalOnProperty(value = "codedreamplus.redis.hot-key.enabled", havingValue = "true")
+public class HotKeyConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	public HotKeyDetector hotKeyDetector(CodeDreamPlusRedisProperties properties,
+										 ObjectProvider<NearCache> nearCache,
+										 ObjectProvider<HotKeyListener> listeners) {
+		CodeDreamPlusRedisProperties.HotKeyProperties hotKey = properties.getHotKey();
+		HotKeyDetector detector = new HotKeyDetector(hotKey.getSampleRate(), hotKey.getTopK(),
+			hotKey.getSketchDepth(), hotKey.getSketchWidth(), hotKey.getInterval());
+		detector.setNearCache(nearCache.getIfAvailable());
+		detector.setPinThreshold(hotKey.getPinThreshold());
+		detector.setPinExpire(hotKey.getPinExpire());
+		listeners.orderedStream().forEach(detector::addListener);
+		return detector;
+	}
+}
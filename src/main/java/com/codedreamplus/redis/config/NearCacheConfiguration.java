@@ -0,0 +1,42 @@
+package com.codedreamplus.redis.config;
+
+import com.codedreamplus.redis.cache.NearCache;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+import java.util.Arrays;
+
+/**
+ * 本地一级缓存配置
+ *
+ * @author cool
+ */
+@Configuration
+@ConditionalOnProperty(value = "codedreamplus.redis.near-cache.enabled", havingValue = "true")
+public class NearCacheConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	public NearCache nearCache(StringRedisTemplate redisTemplate, CodeDreamPlusRedisProperties properties) {
+		CodeDreamPlusRedisProperties.NearCacheProperties nearCache = properties.getNearCache();
+		return new NearCache(redisTemplate, nearCache.getChannel(), nearCache.getMaximumSize(),
+			nearCache.getExpire(), nearCache.getPrefixes());
+	}
+
+	@Bean
+	public RedisMessageListenerContainer nearCacheListenerContainer(RedisConnectionFactory connectionFactory,
+																	NearCache nearCache,
+																	CodeDreamPlusRedisProperties properties) {
+		RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+		container.setConnectionFactory(connectionFactory);
+		container.addMessageListener(nearCache, Arrays.asList(new ChannelTopic(nearCache.getChannel()),
+			new ChannelTopic(nearCache.getPinChannel())));
+		return container;
+	}
+}
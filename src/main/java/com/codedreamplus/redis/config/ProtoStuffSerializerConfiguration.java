@@ -1,7 +1,9 @@
 
 package com.codedreamplus.redis.config;
 
+import com.codedreamplus.redis.serializer.PrimitiveRedisSerializer;
 import com.codedreamplus.redis.serializer.ProtoStuffSerializer;
+import com.codedreamplus.redis.serializer.ProtoStuffTypeRegistry;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -24,10 +26,30 @@ public class ProtoStuffSerializerConfiguration implements CodeDreamRedisSerializ
     @ConditionalOnMissingBean
     @Override
     public RedisSerializer<Object> redisSerializer(CodeDreamPlusRedisProperties properties) {
-        if (CodeDreamPlusRedisProperties.SerializerType.ProtoStuff == properties.getSerializerType()) {
-            return new ProtoStuffSerializer();
+        CodeDreamPlusRedisProperties.SerializerType serializerType = properties.getSerializerType();
+        if (CodeDreamPlusRedisProperties.SerializerType.ProtoStuff == serializerType) {
+            return decorate(new ProtoStuffSerializer(protoStuffTypeRegistry(properties)), properties);
         }
-        return defaultRedisSerializer(properties);
+        if (CodeDreamPlusRedisProperties.SerializerType.Primitive == serializerType
+                && CodeDreamPlusRedisProperties.SerializerType.ProtoStuff == properties.getPrimitiveDelegate()) {
+            ProtoStuffSerializer delegate = new ProtoStuffSerializer(protoStuffTypeRegistry(properties));
+            return decorate(new PrimitiveRedisSerializer(delegate), properties);
+        }
+        return decorate(defaultRedisSerializer(properties), properties);
+    }
+
+    /**
+     * ProtoStuff 类型 ID 注册表，也可以注入后通过 register 注册
+     *
+     * @return ProtoStuffTypeRegistry
+     */
+    @Bean
+    public ProtoStuffTypeRegistry protoStuffTypeRegistry(CodeDreamPlusRedisProperties properties) {
+        CodeDreamPlusRedisProperties.ProtoStuffProperties protoStuff = properties.getProtoStuff();
+        ProtoStuffTypeRegistry typeRegistry = new ProtoStuffTypeRegistry();
+        protoStuff.getTypeIds().forEach(typeRegistry::register);
+        typeRegistry.scan(protoStuff.getScanPackages().toArray(new String[0]));
+        return typeRegistry;
     }
 
 }
@@ -1,20 +1,30 @@
 package com.codedreamplus.redis.config;
 
 
+import com.codedreamplus.redis.ratelimiter.LeasingRateLimiterClient;
+import com.codedreamplus.redis.ratelimiter.RateLimiterCircuitBreaker;
+import com.codedreamplus.redis.ratelimiter.RateLimiterFallback;
+import com.codedreamplus.redis.ratelimiter.ReactiveRedisRateLimiterClient;
 import com.codedreamplus.redis.ratelimiter.RedisRateLimiterAspect;
 import com.codedreamplus.redis.ratelimiter.RedisRateLimiterClient;
+import com.codedreamplus.redis.script.RedisScriptRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.env.Environment;
-import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
 import org.springframework.data.redis.core.StringRedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
-import org.springframework.data.redis.core.script.RedisScript;
-import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.Assert;
 
-import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 基于 redis 的分布式限流自动配置
@@ -25,19 +35,39 @@ import java.util.List;
 @ConditionalOnProperty(value = "codedreamplus.redis.rate-limiter.enabled", havingValue = "true")
 public class RateLimiterAutoConfiguration {
 
-	@SuppressWarnings("unchecked")
-	private RedisScript<List<Long>> redisRateLimiterScript() {
-		DefaultRedisScript redisScript = new DefaultRedisScript<>();
-		redisScript.setScriptSource(new ResourceScriptSource(new ClassPathResource("META-INF/scripts/codedreamplus_rate_limiter.lua")));
-		redisScript.setResultType(List.class);
-		return redisScript;
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnProperty(value = "codedreamplus.redis.rate-limiter.fallback.enabled", havingValue = "true")
+	public RateLimiterFallback rateLimiterFallback(CodeDreamPlusRedisProperties properties) {
+		CodeDreamPlusRedisProperties.FallbackProperties fallback = properties.getRateLimiter().getFallback();
+		RateLimiterCircuitBreaker circuitBreaker = new RateLimiterCircuitBreaker(fallback.getSlowCallThreshold(),
+			fallback.getFailureRateThreshold(), fallback.getMinimumCalls(), fallback.getWindow(), fallback.getOpenDuration());
+		ThreadPoolExecutor executor = null;
+		if (fallback.getTimeout() != null) {
+			CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("codedreamplus-limiter-");
+			threadFactory.setDaemon(true);
+			executor = new ThreadPoolExecutor(fallback.getThreads(), fallback.getThreads(),
+				60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(fallback.getQueueCapacity()), threadFactory);
+			executor.allowCoreThreadTimeOut(true);
+		}
+		return new RateLimiterFallback(fallback.getPolicy(), fallback.getNodeCount(), circuitBreaker, fallback.getTimeout(), executor);
 	}
 
 	@Bean
 	@ConditionalOnMissingBean
-	public RedisRateLimiterClient redisRateLimiter(StringRedisTemplate redisTemplate, Environment environment) {
-		RedisScript<List<Long>> redisRateLimiterScript = redisRateLimiterScript();
-		return new RedisRateLimiterClient(redisTemplate, redisRateLimiterScript, environment);
+	public RedisRateLimiterClient redisRateLimiter(StringRedisTemplate redisTemplate, RedisScriptRegistry scriptRegistry,
+												   Environment environment, CodeDreamPlusRedisProperties properties,
+												   ObjectProvider<RateLimiterFallback> fallback) {
+		CodeDreamPlusRedisProperties.LeaseProperties lease = properties.getRateLimiter().getLease();
+		RedisRateLimiterClient rateLimiterClient;
+		if (lease.isEnabled()) {
+			rateLimiterClient = new LeasingRateLimiterClient(redisTemplate, scriptRegistry, environment,
+				lease.getLeaseTime(), lease.getMaxBatchRatio(), lease.getRefillRatio());
+		} else {
+			rateLimiterClient = new RedisRateLimiterClient(redisTemplate, scriptRegistry, environment);
+		}
+		rateLimiterClient.setFallback(fallback.getIfAvailable());
+		return rateLimiterClient;
 	}
 
 	@Bean
@@ -45,4 +75,27 @@ public class RateLimiterAutoConfiguration {
 	public RedisRateLimiterAspect redisRateLimiterAspect(RedisRateLimiterClient rateLimiterClient) {
 		return new RedisRateLimiterAspect(rateLimiterClient);
 	}
+
+	/**
+	 * 与 ReactiveRedisConfiguration 相同，按 reactor 和 Lettuce 类是否存在开启，创建时再检查连接工厂类型
+	 */
+	@Configuration
+	@ConditionalOnClass(name = {"reactor.core.publisher.Mono", "io.lettuce.core.RedisClient"})
+	@ConditionalOnProperty(value = "codedreamplus.redis.reactive.enabled", havingValue = "true", matchIfMissing = true)
+	public static class ReactiveRateLimiterConfiguration {
+
+		@Bean
+		@ConditionalOnMissingBean
+		public ReactiveRedisRateLimiterClient reactiveRedisRateLimiter(RedisConnectionFactory connectionFactory,
+																	   RedisScriptRegistry scriptRegistry,
+																	   Environment environment,
+																	   ObjectProvider<RateLimiterFallback> fallback) {
+			Assert.isInstanceOf(ReactiveRedisConnectionFactory.class, connectionFactory,
+				"ReactiveRedisRateLimiterClient requires a ReactiveRedisConnectionFactory, set codedreamplus.redis.reactive.enabled=false to disable it");
+			ReactiveRedisRateLimiterClient rateLimiterClient = new ReactiveRedisRateLimiterClient(
+				new ReactiveStringRedisTemplate((ReactiveRedisConnectionFactory) connectionFactory), scriptRegistry, environment);
+			rateLimiterClient.setFallback(fallback.getIfAvailable());
+			return rateLimiterClient;
+		}
+	}
 }
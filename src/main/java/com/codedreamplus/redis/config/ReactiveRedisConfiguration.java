@@ -0,0 +1,58 @@
+package com.codedreamplus.redis.config;
+
+import com.codedreamplus.redis.ReactiveCodeDreamPlusRedis;
+import com.codedreamplus.redis.cache.NearCache;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.connection.ReactiveRedisConnectionFactory;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.ReactiveRedisTemplate;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.serializer.RedisSerializationContext;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.util.Assert;
+
+/**
+ * 响应式 redis 客户端配置，只在存在 ReactiveRedisConnectionFactory（Lettuce）时生效
+ *
+ * <p>
+ * 本配置通过包扫描加载，早于 RedisAutoConfiguration，不能用 ConditionalOnBean 判断连接工厂，
+ * 因此按 reactor 和 Lettuce 类是否存在开启，创建时再检查连接工厂类型
+ * </p>
+ *
+ * @author cool
+ */
+@Configuration
+@AutoConfigureAfter(RedisAutoConfiguration.class)
+@ConditionalOnClass(name = {"reactor.core.publisher.Flux", "io.lettuce.core.RedisClient"})
+@ConditionalOnProperty(value = "codedreamplus.redis.reactive.enabled", havingValue = "true", matchIfMissing = true)
+public class ReactiveRedisConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	@SuppressWarnings("unchecked")
+	public ReactiveCodeDreamPlusRedis reactiveCodeDreamRedis(RedisConnectionFactory connectionFactory,
+															 RedisTemplate<String, Object> redisTemplate,
+															 ObjectProvider<NearCache> nearCache) {
+		Assert.isInstanceOf(ReactiveRedisConnectionFactory.class, connectionFactory,
+			"ReactiveCodeDreamPlusRedis requires a ReactiveRedisConnectionFactory, set codedreamplus.redis.reactive.enabled=false to disable it");
+		// 与 RedisTemplate 使用相同的序列化
+		RedisSerializationContext<String, Object> serializationContext = RedisSerializationContext
+			.<String, Object>newSerializationContext((RedisSerializer<Object>) redisTemplate.getValueSerializer())
+			.key((RedisSerializer<String>) redisTemplate.getKeySerializer())
+			.hashKey(redisTemplate.getHashKeySerializer())
+			.hashValue(redisTemplate.getHashValueSerializer())
+			.build();
+		ReactiveRedisTemplate<String, Object> reactiveRedisTemplate = new ReactiveRedisTemplate<>(
+			(ReactiveRedisConnectionFactory) connectionFactory, serializationContext);
+		ReactiveCodeDreamPlusRedis reactiveRedis = new ReactiveCodeDreamPlusRedis(reactiveRedisTemplate);
+		reactiveRedis.setNearCache(nearCache.getIfAvailable());
+		return reactiveRedis;
+	}
+}
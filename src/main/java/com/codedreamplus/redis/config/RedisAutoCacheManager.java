@@ -1,5 +1,6 @@
 package com.codedreamplus.redis.config;
 
+import com.codedreamplus.redis.cache.SingleFlight;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.boot.convert.DurationStyle;
 import org.springframework.data.redis.cache.RedisCache;
@@ -18,27 +19,51 @@ import java.util.Map;
  * @author cool
  */
 public class RedisAutoCacheManager extends RedisCacheManager {
+	private final RedisCacheWriter cacheWriter;
+	private final RedisCacheConfiguration defaultCacheConfiguration;
+	/**
+	 * 加载合并，为 null 时使用 RedisCache 默认的同步方式
+	 */
+	@Nullable
+	private final SingleFlight singleFlight;
 
 	public RedisAutoCacheManager(RedisCacheWriter cacheWriter, RedisCacheConfiguration defaultCacheConfiguration,
 								 Map<String, RedisCacheConfiguration> initialCacheConfigurations, boolean allowInFlightCacheCreation) {
+		this(cacheWriter, defaultCacheConfiguration, initialCacheConfigurations, allowInFlightCacheCreation, null);
+	}
+
+	public RedisAutoCacheManager(RedisCacheWriter cacheWriter, RedisCacheConfiguration defaultCacheConfiguration,
+								 Map<String, RedisCacheConfiguration> initialCacheConfigurations, boolean allowInFlightCacheCreation,
+								 @Nullable SingleFlight singleFlight) {
 		super(cacheWriter, defaultCacheConfiguration, initialCacheConfigurations, allowInFlightCacheCreation);
+		this.cacheWriter = cacheWriter;
+		this.defaultCacheConfiguration = defaultCacheConfiguration;
+		this.singleFlight = singleFlight;
 	}
 
 	@Override
 	protected RedisCache createRedisCache(String name, @Nullable RedisCacheConfiguration cacheConfig) {
 		if (StringUtils.isBlank(name) || !name.contains("#")) {
-			return super.createRedisCache(name, cacheConfig);
+			return newRedisCache(name, cacheConfig);
 		}
 		String[] cacheArray = name.split("#");
 		if (cacheArray.length < 2) {
-			return super.createRedisCache(name, cacheConfig);
+			return newRedisCache(name, cacheConfig);
 		}
 		String cacheName = cacheArray[0];
 		if (cacheConfig != null) {
 			Duration cacheAge = DurationStyle.detectAndParse(cacheArray[1], ChronoUnit.SECONDS);;
 			cacheConfig = cacheConfig.entryTtl(cacheAge);
 		}
-		return super.createRedisCache(cacheName, cacheConfig);
+		return newRedisCache(cacheName, cacheConfig);
+	}
+
+	private RedisCache newRedisCache(String name, @Nullable RedisCacheConfiguration cacheConfig) {
+		if (singleFlight == null) {
+			return super.createRedisCache(name, cacheConfig);
+		}
+		return new CodeDreamPlusRedisCache(name, cacheWriter,
+			cacheConfig != null ? cacheConfig : defaultCacheConfiguration, singleFlight);
 	}
 
 }
@@ -1,9 +1,15 @@
 package com.codedreamplus.redis.config;
 
 import com.codedreamplus.redis.CodeDreamPlusRedis;
+import com.codedreamplus.redis.cache.NearCache;
+import com.codedreamplus.redis.cache.SingleFlight;
+import com.codedreamplus.redis.hotkey.HotKeyDetector;
+import com.codedreamplus.redis.script.RedisScriptRegistry;
 import com.codedreamplus.redis.serializer.RedisKeySerializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.data.redis.RedisAutoConfiguration;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cache.annotation.EnableCaching;
@@ -13,6 +19,11 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
 import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * RedisTemplate  配置
@@ -34,7 +45,7 @@ public class RedisTemplateConfiguration implements CodeDreamRedisSerializerConfi
     @ConditionalOnMissingBean(RedisSerializer.class)
     @Override
     public RedisSerializer<Object> redisSerializer(CodeDreamPlusRedisProperties properties) {
-        return defaultRedisSerializer(properties);
+        return decorate(defaultRedisSerializer(properties), properties);
     }
 
     @Bean(name = "redisTemplate")
@@ -60,8 +71,41 @@ public class RedisTemplateConfiguration implements CodeDreamRedisSerializerConfi
     }
 
     @Bean
-    public CodeDreamPlusRedis codeDreamRedis(RedisTemplate<String, Object> redisTemplate) {
-        return new CodeDreamPlusRedis(redisTemplate);
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(value = "codedreamplus.redis.single-flight.enabled", havingValue = "true", matchIfMissing = true)
+    public SingleFlight singleFlight(CodeDreamPlusRedisProperties properties) {
+        return new SingleFlight(properties.getSingleFlight().getTimeout());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RedisScriptRegistry redisScriptRegistry(RedisConnectionFactory redisConnectionFactory) {
+        return new RedisScriptRegistry(redisConnectionFactory);
+    }
+
+    @Bean
+    public CodeDreamPlusRedis codeDreamRedis(RedisTemplate<String, Object> redisTemplate,
+                                             RedisScriptRegistry redisScriptRegistry,
+                                             ObjectProvider<NearCache> nearCache,
+                                             ObjectProvider<SingleFlight> singleFlight,
+                                             ObjectProvider<HotKeyDetector> hotKeyDetector,
+                                             CodeDreamPlusRedisProperties properties) {
+        CodeDreamPlusRedis codeDreamPlusRedis = new CodeDreamPlusRedis(redisTemplate);
+        codeDreamPlusRedis.setNearCache(nearCache.getIfAvailable());
+        codeDreamPlusRedis.setSingleFlight(singleFlight.getIfAvailable());
+        codeDreamPlusRedis.setHotKeyDetector(hotKeyDetector.getIfAvailable());
+        codeDreamPlusRedis.setScriptRegistry(redisScriptRegistry);
+        codeDreamPlusRedis.setPipelineBatchSize(properties.getPipelineBatchSize());
+        codeDreamPlusRedis.setKeysGuardSize(properties.getKeysGuard().getMaxDbSize());
+        codeDreamPlusRedis.setKeysGuardReject(properties.getKeysGuard().isReject());
+        CodeDreamPlusRedisProperties.RefreshProperties refresh = properties.getRefresh();
+        if (refresh.isEnabled()) {
+            CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("codedreamplus-refresh-");
+            threadFactory.setDaemon(true);
+            codeDreamPlusRedis.setRefreshExecutor(new ThreadPoolExecutor(refresh.getThreads(), refresh.getThreads(),
+                    60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(refresh.getQueueCapacity()), threadFactory));
+        }
+        return codeDreamPlusRedis;
     }
 
 }
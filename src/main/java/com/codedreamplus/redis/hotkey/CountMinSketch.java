@@ -0,0 +1,86 @@
+package com.codedreamplus.redis.hotkey;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-Min Sketch 频率估计，固定内存，无锁计数
+ *
+ * <p>
+ * 估计值只会偏大不会偏小，误差约为 总次数 * e / width，概率 1 - (1/2)^depth。
+ * </p>
+ *
+ * @author cool
+ */
+public class CountMinSketch {
+	private final int depth;
+	private final int mask;
+	private final AtomicLongArray counters;
+
+	/**
+	 * @param depth 哈希函数个数
+	 * @param width 每行计数器个数，向上取整为 2 的幂
+	 */
+	public CountMinSketch(int depth, int width) {
+		if (depth <= 0 || width <= 0) {
+			throw new IllegalArgumentException("depth and width must be positive");
+		}
+		int size = Integer.highestOneBit(Math.max(width, 2) - 1) << 1;
+		this.depth = depth;
+		this.mask = size - 1;
+		this.counters = new AtomicLongArray(depth * size);
+	}
+
+	/**
+	 * 增加一次计数
+	 *
+	 * @param key key
+	 * @return 增加后的估计次数
+	 */
+	public long add(String key) {
+		int h1 = spread(key.hashCode());
+		int h2 = spread(h1 * 0x9E3779B9) | 1;
+		long min = Long.MAX_VALUE;
+		for (int i = 0; i < depth; i++) {
+			long count = counters.incrementAndGet(index(i, h1 + i * h2));
+			min = Math.min(min, count);
+		}
+		return min;
+	}
+
+	/**
+	 * 估计次数
+	 *
+	 * @param key key
+	 * @return 估计次数
+	 */
+	public long estimate(String key) {
+		int h1 = spread(key.hashCode());
+		int h2 = spread(h1 * 0x9E3779B9) | 1;
+		long min = Long.MAX_VALUE;
+		for (int i = 0; i < depth; i++) {
+			min = Math.min(min, counters.get(index(i, h1 + i * h2)));
+		}
+		return min;
+	}
+
+	/**
+	 * 所有计数减半，使旧的访问逐步淡出
+	 */
+	public void decay() {
+		for (int i = 0; i < counters.length(); i++) {
+			counters.getAndUpdate(i, count -> count >>> 1);
+		}
+	}
+
+	private int index(int row, int hash) {
+		return row * (mask + 1) + (hash & mask);
+	}
+
+	private static int spread(int h) {
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		return h ^ (h >>> 16);
+	}
+}
@@ -0,0 +1,22 @@
+package com.codedreamplus.redis.hotkey;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * 热点 key
+ *
+ * @author cool
+ */
+@Data
+@AllArgsConstructor
+public class HotKey {
+	/**
+	 * redis key
+	 */
+	private String key;
+	/**
+	 * 一个统计周期内的估计访问次数，已按采样率换算
+	 */
+	private long count;
+}
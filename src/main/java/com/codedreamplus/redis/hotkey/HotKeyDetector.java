@@ -0,0 +1,209 @@
+package com.codedreamplus.redis.hotkey;
+
+import com.codedreamplus.redis.cache.NearCache;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点 key 探测
+ *
+ * <p>
+ * 按采样率记录访问的 key，计入 Count-Min Sketch，并维护估计次数最高的 topK 个 key。
+ * 每个统计周期回调 HotKeyListener，超过阈值的 key 临时开启本地缓存，然后计数减半进入下一个周期。
+ * </p>
+ *
+ * @author cool
+ */
+@Slf4j
+public class HotKeyDetector implements InitializingBean, DisposableBean {
+	private final CountMinSketch sketch;
+	/**
+	 * 采样率，(0, 1]
+	 */
+	@Getter
+	private final double sampleRate;
+	/**
+	 * 保留的热点 key 个数
+	 */
+	@Getter
+	private final int topK;
+	/**
+	 * 统计周期
+	 */
+	@Getter
+	private final Duration interval;
+	/**
+	 * 候选热点 key 及其采样估计次数
+	 */
+	private final Map<String, Long> candidates = new HashMap<>();
+	/**
+	 * 候选中最小的估计次数，候选已满时低于该值的 key 不进入候选，避免加锁
+	 */
+	private volatile long candidateFloor = 0L;
+	private final List<HotKeyListener> listeners = new CopyOnWriteArrayList<>();
+	/**
+	 * 当前周期的热点 key
+	 */
+	private volatile List<HotKey> hotKeys = Collections.emptyList();
+	/**
+	 * 本地缓存，为 null 时不自动开启本地缓存
+	 */
+	@Setter
+	@Nullable
+	private NearCache nearCache;
+	/**
+	 * 每个周期访问次数超过该值时临时开启本地缓存，小于等于 0 时不开启
+	 */
+	@Setter
+	private long pinThreshold = 0L;
+	/**
+	 * 热点 key 的本地缓存超时时间
+	 */
+	@Setter
+	private Duration pinExpire = Duration.ofSeconds(1);
+	private ScheduledExecutorService scheduler;
+
+	public HotKeyDetector(double sampleRate, int topK, int sketchDepth, int sketchWidth, Duration interval) {
+		if (sampleRate <= 0 || sampleRate > 1) {
+			throw new IllegalArgumentException("sampleRate must be in (0, 1]");
+		}
+		this.sketch = new CountMinSketch(sketchDepth, sketchWidth);
+		this.sampleRate = sampleRate;
+		this.topK = topK;
+		this.interval = interval;
+	}
+
+	/**
+	 * 记录一次访问，未被采样时只有一次随机数的开销
+	 *
+	 * @param key redis key
+	 */
+	public void record(String key) {
+		if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+			return;
+		}
+		long count = sketch.add(key);
+		if (count <= candidateFloor) {
+			return;
+		}
+		synchronized (candidates) {
+			candidates.put(key, count);
+			if (candidates.size() > topK) {
+				evictMin();
+			}
+			if (candidates.size() >= topK) {
+				candidateFloor = Collections.min(candidates.values());
+			}
+		}
+	}
+
+	/**
+	 * 添加监听
+	 *
+	 * @param listener HotKeyListener
+	 */
+	public void addListener(HotKeyListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * 上一个周期的热点 key，按访问次数从高到低排列
+	 *
+	 * @return 热点 key
+	 */
+	public List<HotKey> getHotKeys() {
+		return hotKeys;
+	}
+
+	/**
+	 * 结束当前周期：计算热点 key，通知监听，开启本地缓存，计数减半
+	 */
+	public void publish() {
+		List<HotKey> current = new ArrayList<>();
+		synchronized (candidates) {
+			for (Map.Entry<String, Long> entry : candidates.entrySet()) {
+				current.add(new HotKey(entry.getKey(), Math.round(entry.getValue() / sampleRate)));
+			}
+			sketch.decay();
+			// 减半后重新估计，保留仍在 topK 内的候选
+			candidates.replaceAll((key, count) -> sketch.estimate(key));
+			candidates.values().removeIf(count -> count == 0);
+			candidateFloor = candidates.size() >= topK ? Collections.min(candidates.values()) : 0L;
+		}
+		current.sort(Comparator.comparingLong(HotKey::getCount).reversed());
+		hotKeys = Collections.unmodifiableList(current);
+		if (current.isEmpty()) {
+			return;
+		}
+		log.debug("hot keys: {}", current);
+		pin(current);
+		for (HotKeyListener listener : listeners) {
+			try {
+				listener.onHotKeys(hotKeys);
+			} catch (Exception e) {
+				log.warn("hot key listener failed", e);
+			}
+		}
+	}
+
+	private void pin(List<HotKey> current) {
+		NearCache nearCache = this.nearCache;
+		if (nearCache == null || pinThreshold <= 0) {
+			return;
+		}
+		for (HotKey hotKey : current) {
+			if (hotKey.getCount() < pinThreshold) {
+				break;
+			}
+			// 开启到下一个周期结束，仍是热点时会续期
+			nearCache.pin(hotKey.getKey(), interval.multipliedBy(2), pinExpire);
+		}
+	}
+
+	private void evictMin() {
+		String minKey = null;
+		long min = Long.MAX_VALUE;
+		for (Map.Entry<String, Long> entry : candidates.entrySet()) {
+			if (entry.getValue() < min) {
+				min = entry.getValue();
+				minKey = entry.getKey();
+			}
+		}
+		candidates.remove(minKey);
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("codedreamplus-hotkey-");
+		threadFactory.setDaemon(true);
+		scheduler = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		long period = interval.toMillis();
+		scheduler.scheduleAtFixedRate(() -> {
+			try {
+				publish();
+			} catch (Exception e) {
+				log.warn("hot key publish failed", e);
+			}
+		}, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void destroy() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package com.codedreamplus.redis.hotkey;
+
+import java.util.List;
+
+/**
+ * 热点 key 监听，每个统计周期回调一次
+ *
+ * @author cool
+ */
+@FunctionalInterface
+public interface HotKeyListener {
+
+	/**
+	 * 当前周期的热点 key
+	 *
+	 * @param hotKeys 按访问次数从高到低排列
+	 */
+	void onHotKeys(List<HotKey> hotKeys);
+}
@@ -0,0 +1,58 @@
+package com.codedreamplus.redis.lock;
+
+import com.codedreamplus.redis.script.RedisScriptRegistry;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.script.ScriptExecutor;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.UUID;
+
+/**
+ * 基于 SET NX PX 的租约锁，不依赖 redisson
+ *
+ * <p>
+ * 适合持有时间很短、不需要重入和公平的场景，例如缓存加载，租约到期后自动释放。
+ * </p>
+ *
+ * @author cool
+ */
+public class RedisLeaseLock {
+	private final RedisTemplate<String, Object> redisTemplate;
+	private final ScriptExecutor<String> scriptExecutor;
+	private final RedisScript<Long> releaseScript;
+
+	public RedisLeaseLock(RedisTemplate<String, Object> redisTemplate, RedisScriptRegistry scriptRegistry) {
+		this.redisTemplate = redisTemplate;
+		this.scriptExecutor = scriptRegistry.executor(redisTemplate);
+		this.releaseScript = scriptRegistry.getScript("codedreamplus_lease_release", Long.class);
+	}
+
+	/**
+	 * 尝试获取租约
+	 *
+	 * @param key       锁 key
+	 * @param leaseTime 租约时间
+	 * @return 获取成功返回 token，用于释放，失败返回 null
+	 */
+	@Nullable
+	public String tryAcquire(String key, Duration leaseTime) {
+		String token = UUID.randomUUID().toString();
+		Boolean acquired = redisTemplate.opsForValue().setIfAbsent(key, token, leaseTime);
+		return Boolean.TRUE.equals(acquired) ? token : null;
+	}
+
+	/**
+	 * 释放租约，只会释放 token 对应的租约
+	 *
+	 * @param key   锁 key
+	 * @param token 获取租约时返回的 token
+	 * @return 是否释放
+	 */
+	public boolean release(String key, String token) {
+		Long released = scriptExecutor.execute(releaseScript, Collections.singletonList(key), token);
+		return released != null && released > 0;
+	}
+}
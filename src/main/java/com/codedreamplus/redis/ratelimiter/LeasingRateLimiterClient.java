@@ -0,0 +1,215 @@
+package com.codedreamplus.redis.ratelimiter;
+
+import com.codedreamplus.redis.script.RedisScriptRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.script.ScriptExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 令牌租约限流服务
+ *
+ * <p>
+ * 令牌桶算法（{@link RateLimiterAlgorithm#TOKEN_BUCKET}）的请求不再每次访问 redis：节点从同一个令牌桶中一次取出一批令牌，
+ * 在本地用原子计数发放，剩余不足 refillRatio 时异步预取下一批。批量按本地的请求速率计算，约为半个租约期的用量，
+ * 不超过 max * maxBatchRatio。其他算法仍然每次访问 redis。
+ * </p>
+ *
+ * <p>
+ * 超发上限：redis 发出的令牌总数仍受令牌桶限制，租约只会推迟令牌的使用时间，推迟不超过 leaseTime，过期的令牌作废。
+ * 因此任意 ttl 时间内通过的请求最多比不开启租约多 min(节点数 * 每个节点未用完的令牌, max * leaseTime / ttl)，
+ * 每个节点未用完的令牌不超过 (1 + refillRatio) * max * maxBatchRatio。
+ * 反过来，过期作废和节点间分配不均会少放行一部分请求。
+ * </p>
+ *
+ * @author cool
+ */
+@Slf4j
+public class LeasingRateLimiterClient extends RedisRateLimiterClient implements DisposableBean {
+	private final ScriptExecutor<String> scriptExecutor;
+	/**
+	 * 租约脚本，与令牌桶使用同一个 key
+	 */
+	private final RedisScript<Long> leaseScript;
+	private final Environment environment;
+	/**
+	 * 令牌有效期，纳秒
+	 */
+	private final long leaseNanos;
+	private final double maxBatchRatio;
+	private final double refillRatio;
+	private final Map<String, Lease> leases = new ConcurrentHashMap<>();
+	private final ScheduledExecutorService executor;
+
+	public LeasingRateLimiterClient(StringRedisTemplate redisTemplate, RedisScriptRegistry scriptRegistry, Environment environment,
+									Duration leaseTime, double maxBatchRatio, double refillRatio) {
+		super(redisTemplate, scriptRegistry, environment);
+		this.scriptExecutor = scriptRegistry.executor(redisTemplate);
+		this.leaseScript = scriptRegistry.getScript("codedreamplus_rate_limiter_lease", Long.class);
+		this.environment = environment;
+		this.leaseNanos = leaseTime.toNanos();
+		this.maxBatchRatio = maxBatchRatio;
+		this.refillRatio = refillRatio;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("codedreamplus-lease-");
+		threadFactory.setDaemon(true);
+		this.executor = Executors.newSingleThreadScheduledExecutor(threadFactory);
+		long sweep = Math.max(leaseTime.toMillis(), 1000L);
+		this.executor.scheduleWithFixedDelay(this::sweep, sweep, sweep, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public boolean isAllowed(String key, long max, long ttl, TimeUnit timeUnit, RateLimiterAlgorithm algorithm) {
+		if (algorithm != RateLimiterAlgorithm.TOKEN_BUCKET) {
+			return super.isAllowed(key, max, ttl, timeUnit, algorithm);
+		}
+		String redisKey = getRedisKey(environment, key, algorithm);
+		long ttlMillis = timeUnit.toMillis(ttl);
+		Lease lease = leases.computeIfAbsent(redisKey, k -> new Lease());
+		if (tryAcquire(lease, redisKey, max, ttlMillis)) {
+			return true;
+		}
+		// 令牌桶已空，补充出一批令牌之前直接拒绝，不访问 redis
+		if (System.nanoTime() - lease.deniedUntil < 0) {
+			return false;
+		}
+		// 本地令牌用完或过期，同步取一批，同一个 key 只有一个线程访问 redis
+		synchronized (lease) {
+			if (tryAcquire(lease, redisKey, max, ttlMillis)) {
+				return true;
+			}
+			return withFallback(key, max, ttl, timeUnit, () -> {
+				long granted = lease(lease, redisKey, max, ttlMillis);
+				if (granted <= 0) {
+					long refillNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis) / max * lease.batch;
+					lease.deniedUntil = System.nanoTime() + Math.min(refillNanos, leaseNanos);
+					return false;
+				}
+				lease.remaining.addAndGet(granted - 1);
+				lease.consumed.incrementAndGet();
+				return true;
+			});
+		}
+	}
+
+	/**
+	 * 从本地租约中取一个令牌，无锁
+	 */
+	private boolean tryAcquire(Lease lease, String redisKey, long max, long ttlMillis) {
+		long now = System.nanoTime();
+		if (now - lease.expiresAt >= 0) {
+			// 过期的令牌作废，只清除读到的令牌数，异步预取同时补充了令牌时 CAS 失败，不覆盖新令牌
+			long expired = lease.remaining.get();
+			if (expired > 0) {
+				lease.remaining.compareAndSet(expired, 0);
+			}
+			return false;
+		}
+		for (; ; ) {
+			long remaining = lease.remaining.get();
+			if (remaining <= 0) {
+				return false;
+			}
+			if (lease.remaining.compareAndSet(remaining, remaining - 1)) {
+				lease.consumed.incrementAndGet();
+				if (remaining - 1 <= lease.batch * refillRatio && lease.refilling.compareAndSet(false, true)) {
+					refillAsync(lease, redisKey, max, ttlMillis);
+				}
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * 令牌用完前异步预取下一批
+	 */
+	private void refillAsync(Lease lease, String redisKey, long max, long ttlMillis) {
+		try {
+			executor.execute(() -> {
+				try {
+					synchronized (lease) {
+						long granted = lease(lease, redisKey, max, ttlMillis);
+						if (granted > 0) {
+							lease.remaining.addAndGet(granted);
+						}
+					}
+				} catch (Exception e) {
+					log.warn("rate limiter lease refill failed: {}", redisKey, e);
+				} finally {
+					lease.refilling.set(false);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			lease.refilling.set(false);
+		}
+	}
+
+	/**
+	 * 从 redis 取一批令牌，批量约为半个租约期的用量，至少 1 个，最多 max * maxBatchRatio
+	 *
+	 * @return 取得的令牌数
+	 */
+	private long lease(Lease lease, String redisKey, long max, long ttlMillis) {
+		long now = System.nanoTime();
+		long elapsed = Math.max(now - lease.leasedAt, 1L);
+		long consumed = lease.consumed.getAndSet(0);
+		long maxBatch = Math.max(1L, (long) (max * maxBatchRatio));
+		long demand = (long) Math.ceil((double) consumed * (leaseNanos / 2) / elapsed);
+		long batch = Math.min(Math.max(demand, 1L), maxBatch);
+		Long granted = scriptExecutor.execute(leaseScript, Collections.singletonList(redisKey),
+			max + "", ttlMillis + "", System.currentTimeMillis() + "", batch + "");
+		lease.batch = batch;
+		lease.leasedAt = now;
+		// 令牌的有效期不超过限流的 ttl
+		lease.expiresAt = now + Math.min(leaseNanos, TimeUnit.MILLISECONDS.toNanos(ttlMillis));
+		return granted == null ? 0L : granted;
+	}
+
+	/**
+	 * 清理过期的租约，避免按参数限流时 key 无限增长
+	 */
+	private void sweep() {
+		long now = System.nanoTime();
+		leases.values().removeIf(lease -> now - lease.expiresAt >= leaseNanos && !lease.refilling.get());
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * 一个 key 在本节点的租约
+	 */
+	private static class Lease {
+		/**
+		 * 剩余令牌
+		 */
+		private final AtomicLong remaining = new AtomicLong();
+		/**
+		 * 上次取令牌后发放的令牌数，用于计算请求速率
+		 */
+		private final AtomicLong consumed = new AtomicLong();
+		private final AtomicBoolean refilling = new AtomicBoolean();
+		private volatile long batch = 1L;
+		private volatile long leasedAt = System.nanoTime();
+		private volatile long expiresAt = System.nanoTime();
+		/**
+		 * redis 中的令牌桶为空时，在该时间之前直接拒绝
+		 */
+		private volatile long deniedUntil = System.nanoTime();
+	}
+}
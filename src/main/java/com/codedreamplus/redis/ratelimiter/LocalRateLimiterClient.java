@@ -0,0 +1,109 @@
+package com.codedreamplus.redis.ratelimiter;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 进程内限流服务，不访问 redis
+ *
+ * <p>
+ * 所有算法都按令牌桶计算：容量为 max，每 ttl 补满。每个 key、max、ttl 一个令牌桶，空闲超过 ttl 的令牌桶已补满，
+ * 与不存在等价，访问时每 {@link #SWEEP_INTERVAL_NANOS} 清理一次，避免按参数限流时 key 无限增长。
+ * </p>
+ *
+ * @author cool
+ */
+public class LocalRateLimiterClient implements RateLimiterClient {
+	/**
+	 * 清理空闲令牌桶的间隔
+	 */
+	private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+	private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+	private final AtomicLong lastSweep = new AtomicLong(System.nanoTime());
+
+	@Override
+	public boolean isAllowed(String key, long max, long ttl, TimeUnit timeUnit) {
+		return isAllowed(key, max, ttl, timeUnit, RateLimiterAlgorithm.SLIDING_LOG);
+	}
+
+	@Override
+	public boolean isAllowed(String key, long max, long ttl, TimeUnit timeUnit, RateLimiterAlgorithm algorithm) {
+		long now = System.nanoTime();
+		sweepIfNeeded(now);
+		return bucket(key, max, timeUnit.toNanos(ttl)).tryAcquire(now);
+	}
+
+	@Nullable
+	@Override
+	public RateLimitRule tryAcquire(String key, List<RateLimitRule> rules) {
+		Assert.notEmpty(rules, "RateLimitRule list must not be empty");
+		long now = System.nanoTime();
+		sweepIfNeeded(now);
+		Bucket[] acquired = new Bucket[rules.size()];
+		for (int i = 0; i < rules.size(); i++) {
+			RateLimitRule rule = rules.get(i);
+			// 按规则序号区分，相同的规则各自计数
+			Bucket bucket = bucket(key + ":" + i, rule.getMax(), rule.getTimeUnit().toNanos(rule.getTtl()));
+			if (!bucket.tryAcquire(now)) {
+				// 任一规则拒绝时退回已取的令牌
+				for (int j = 0; j < i; j++) {
+					acquired[j].release();
+				}
+				return rule;
+			}
+			acquired[i] = bucket;
+		}
+		return null;
+	}
+
+	private Bucket bucket(String key, long max, long ttlNanos) {
+		return buckets.computeIfAbsent(key + ":" + max + ":" + ttlNanos, k -> new Bucket(max, ttlNanos));
+	}
+
+	private void sweepIfNeeded(long now) {
+		long last = lastSweep.get();
+		if (now - last < SWEEP_INTERVAL_NANOS || !lastSweep.compareAndSet(last, now)) {
+			return;
+		}
+		buckets.values().removeIf(bucket -> now - bucket.updatedAt >= bucket.ttlNanos);
+	}
+
+	/**
+	 * 令牌桶
+	 */
+	private static class Bucket {
+		private final long max;
+		private final long ttlNanos;
+		private double tokens;
+		private volatile long updatedAt = System.nanoTime();
+
+		private Bucket(long max, long ttlNanos) {
+			this.max = max;
+			this.ttlNanos = ttlNanos;
+			this.tokens = max;
+		}
+
+		private synchronized boolean tryAcquire(long now) {
+			// 按流逝的时间补充令牌
+			if (now > updatedAt) {
+				tokens = Math.min(max, tokens + (double) (now - updatedAt) * max / ttlNanos);
+				updatedAt = now;
+			}
+			if (tokens < 1) {
+				return false;
+			}
+			tokens -= 1;
+			return true;
+		}
+
+		private synchronized void release() {
+			tokens = Math.min(max, tokens + 1);
+		}
+	}
+}
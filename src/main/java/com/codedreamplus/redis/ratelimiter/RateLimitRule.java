@@ -0,0 +1,61 @@
+package com.codedreamplus.redis.ratelimiter;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.util.Assert;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 限流规则，按滑动窗口计数，ttl 时间内最多 max 次请求
+ *
+ * @author cool
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class RateLimitRule {
+	/**
+	 * 支持的最大请求
+	 */
+	private final long max;
+	/**
+	 * 时间
+	 */
+	private final long ttl;
+	/**
+	 * 时间单位
+	 */
+	private final TimeUnit timeUnit;
+
+	public RateLimitRule(long max, long ttl, TimeUnit timeUnit) {
+		Assert.isTrue(max > 0, "RateLimitRule max must be positive");
+		Assert.isTrue(timeUnit.toMillis(ttl) > 0, "RateLimitRule ttl must be at least 1ms");
+		this.max = max;
+		this.ttl = ttl;
+		this.timeUnit = timeUnit;
+	}
+
+	/**
+	 * 创建限流规则
+	 *
+	 * @param max      支持的最大请求
+	 * @param ttl      时间
+	 * @param timeUnit 时间单位
+	 * @return 限流规则
+	 */
+	public static RateLimitRule of(long max, long ttl, TimeUnit timeUnit) {
+		return new RateLimitRule(max, ttl, timeUnit);
+	}
+
+	/**
+	 * 规则被拒绝时的异常
+	 *
+	 * @param key 限流的 key
+	 * @return RateLimiterException
+	 */
+	RateLimiterException toException(String key) {
+		return new RateLimiterException(key, max, ttl, timeUnit);
+	}
+}
@@ -45,4 +45,55 @@ public @interface RateLimiter {
 	 * @return TimeUnit
 	 */
 	TimeUnit timeUnit() default TimeUnit.MINUTES;
+
+	/**
+	 * 限流算法，默认: 滑动日志
+	 *
+	 * @return RateLimiterAlgorithm
+	 */
+	RateLimiterAlgorithm algorithm() default RateLimiterAlgorithm.SLIDING_LOG;
+
+	/**
+	 * 限流范围，默认: 集群，LOCAL 时使用进程内令牌桶，不访问 redis
+	 *
+	 * @return RateLimiterScope
+	 */
+	RateLimiterScope scope() default RateLimiterScope.CLUSTER;
+
+	/**
+	 * 多条限流规则，配置后忽略 max、ttl、timeUnit、algorithm，所有规则在一次脚本执行中检查并消耗
+	 *
+	 * @return 限流规则
+	 */
+	Rule[] rules() default {};
+
+	/**
+	 * 限流规则，按滑动窗口计数，ttl 时间内最多 max 次请求
+	 */
+	@Retention(RetentionPolicy.RUNTIME)
+	@Target({})
+	@Documented
+	@interface Rule {
+
+		/**
+		 * 支持的最大请求
+		 *
+		 * @return 请求数
+		 */
+		long max();
+
+		/**
+		 * 持续时间，默认: 1
+		 *
+		 * @return 持续时间
+		 */
+		long ttl() default 1L;
+
+		/**
+		 * 时间单位，默认为秒
+		 *
+		 * @return TimeUnit
+		 */
+		TimeUnit timeUnit() default TimeUnit.SECONDS;
+	}
 }
@@ -0,0 +1,39 @@
+package com.codedreamplus.redis.ratelimiter;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 限流算法
+ *
+ * @author cool
+ */
+@Getter
+@AllArgsConstructor
+public enum RateLimiterAlgorithm {
+	/**
+	 * 滑动日志，每个请求一个 zset 成员，精确但内存与 max 成正比
+	 */
+	SLIDING_LOG("codedreamplus_rate_limiter", ""),
+	/**
+	 * 令牌桶，容量为 max，每 ttl 补满，允许 max 的突发
+	 */
+	TOKEN_BUCKET("codedreamplus_rate_limiter_token_bucket", ":tb"),
+	/**
+	 * GCRA，请求按 ttl / max 的间隔均匀通过，允许 max 的突发，只保存一个时间戳
+	 */
+	GCRA("codedreamplus_rate_limiter_gcra", ":gcra"),
+	/**
+	 * 滑动窗口计数，按上一个窗口的计数加权估计，只保存两个计数
+	 */
+	SLIDING_WINDOW("codedreamplus_rate_limiter_sliding_window", ":sw");
+
+	/**
+	 * 脚本名，META-INF/scripts 下的文件名去掉 .lua
+	 */
+	private final String script;
+	/**
+	 * redis key 后缀，不同算法的数据结构不同，不能共用 key
+	 */
+	private final String keySuffix;
+}
@@ -0,0 +1,160 @@
+package com.codedreamplus.redis.ratelimiter;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 限流访问 redis 的熔断器
+ *
+ * <p>
+ * 统计窗口内调用次数达到 minimumCalls，且失败（异常、超时、耗时超过 slowCallThreshold）的比例达到 failureRateThreshold 时打开，
+ * 打开期间不访问 redis，直接使用降级策略；openDuration 后放行一个探测请求，成功则关闭，失败则继续打开。
+ * </p>
+ *
+ * @author cool
+ */
+@Slf4j
+public class RateLimiterCircuitBreaker {
+	private final long slowCallNanos;
+	private final double failureRateThreshold;
+	private final long minimumCalls;
+	private final long windowNanos;
+	private final long openNanos;
+	private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
+	private volatile Window window = new Window(System.nanoTime());
+	/**
+	 * 打开或开始探测的时间
+	 */
+	private final AtomicLong openedAt = new AtomicLong();
+
+	public RateLimiterCircuitBreaker(Duration slowCallThreshold, double failureRateThreshold, long minimumCalls,
+									 Duration window, Duration openDuration) {
+		this.slowCallNanos = slowCallThreshold.toNanos();
+		this.failureRateThreshold = failureRateThreshold;
+		this.minimumCalls = minimumCalls;
+		this.windowNanos = window.toNanos();
+		this.openNanos = openDuration.toNanos();
+	}
+
+	/**
+	 * 是否可以访问 redis，打开期间返回 false，到期后只有一个调用得到 true 作为探测
+	 *
+	 * @return 是否可以访问 redis
+	 */
+	public boolean tryAcquirePermission() {
+		if (state.get() == State.CLOSED) {
+			return true;
+		}
+		// 打开到期，或者探测请求超过 openDuration 仍没有结果时，放行一个新的探测请求
+		long now = System.nanoTime();
+		long opened = openedAt.get();
+		if (now - opened < openNanos || !openedAt.compareAndSet(opened, now)) {
+			return false;
+		}
+		state.set(State.HALF_OPEN);
+		return true;
+	}
+
+	/**
+	 * 访问 redis 成功，耗时超过 slowCallThreshold 时按失败统计
+	 *
+	 * @param nanos 耗时，纳秒
+	 */
+	public void onSuccess(long nanos) {
+		record(nanos >= slowCallNanos);
+	}
+
+	/**
+	 * 访问 redis 失败或超时
+	 */
+	public void onError() {
+		record(true);
+	}
+
+	/**
+	 * 调用被下游取消，没有结果，不计入统计；取消的是探测请求时立即允许下一个探测，不再等待 openDuration
+	 */
+	public void onCancel() {
+		if (state.compareAndSet(State.HALF_OPEN, State.OPEN)) {
+			openedAt.set(System.nanoTime() - openNanos);
+		}
+	}
+
+	private void record(boolean failure) {
+		long now = System.nanoTime();
+		if (state.get() == State.HALF_OPEN) {
+			if (failure) {
+				open(State.HALF_OPEN, now);
+			} else if (state.compareAndSet(State.HALF_OPEN, State.CLOSED)) {
+				window = new Window(now);
+				log.info("rate limiter circuit breaker closed, redis recovered");
+			}
+			return;
+		}
+		Window current = window;
+		if (now - current.start >= windowNanos) {
+			current = new Window(now);
+			window = current;
+		}
+		current.calls.increment();
+		if (!failure) {
+			return;
+		}
+		current.failures.increment();
+		long calls = current.calls.sum();
+		if (calls >= minimumCalls && current.failures.sum() >= calls * failureRateThreshold) {
+			open(State.CLOSED, now);
+		}
+	}
+
+	private void open(State expect, long now) {
+		if (state.get() != expect) {
+			return;
+		}
+		openedAt.set(now);
+		if (state.compareAndSet(expect, State.OPEN)) {
+			log.warn("rate limiter circuit breaker opened, redis is failing or slow, fallback for {}ms", openNanos / 1000_000L);
+		}
+	}
+
+	/**
+	 * 当前状态
+	 *
+	 * @return State
+	 */
+	public State getState() {
+		return state.get();
+	}
+
+	public enum State {
+		/**
+		 * 正常访问 redis
+		 */
+		CLOSED,
+		/**
+		 * 不访问 redis，使用降级策略
+		 */
+		OPEN,
+		/**
+		 * 放行一个探测请求，其余请求使用降级策略
+		 */
+		HALF_OPEN
+	}
+
+	/**
+	 * 统计窗口
+	 */
+	private static class Window {
+		private final long start;
+		private final LongAdder calls = new LongAdder();
+		private final LongAdder failures = new LongAdder();
+
+		private Window(long start) {
+			this.start = start;
+		}
+	}
+}
@@ -2,8 +2,10 @@ package com.codedreamplus.redis.ratelimiter;
 
 
 import com.codedreamplus.redis.function.CheckedCallBack;
+import org.springframework.lang.Nullable;
 
 import java.lang.reflect.InvocationTargetException;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -38,6 +40,23 @@ public interface RateLimiterClient {
      */
     boolean isAllowed(String key, long max, long ttl, TimeUnit timeUnit);
 
+    /**
+     * 服务是否被限流
+     *
+     * @param key       自定义的key，请保证唯一
+     * @param max       支持的最大请求
+     * @param ttl       时间
+     * @param timeUnit  时间单位
+     * @param algorithm 限流算法，默认实现只支持 SLIDING_LOG
+     * @return 是否允许
+     */
+    default boolean isAllowed(String key, long max, long ttl, TimeUnit timeUnit, RateLimiterAlgorithm algorithm) {
+        if (algorithm == RateLimiterAlgorithm.SLIDING_LOG) {
+            return this.isAllowed(key, max, ttl, timeUnit);
+        }
+        throw new UnsupportedOperationException(getClass().getName() + " does not support rate limiter algorithm " + algorithm);
+    }
+
     /**
      * 服务限流，被限制时抛出 RateLimiterException 异常，需要自行处理异常
      *
@@ -63,27 +82,92 @@ public interface RateLimiterClient {
      * @return 函数执行结果
      */
     default <T> T allow(String key, long max, long ttl, TimeUnit timeUnit, CheckedCallBack<T> checkedCallBack) {
-        boolean isAllowed = this.isAllowed(key, max, ttl, timeUnit);
+        return allow(key, max, ttl, timeUnit, RateLimiterAlgorithm.SLIDING_LOG, checkedCallBack);
+    }
+
+    /**
+     * 服务限流，被限制时抛出 RateLimiterException 异常，需要自行处理异常
+     *
+     * @param key             自定义的key，请保证唯一
+     * @param max             支持的最大请求
+     * @param ttl             时间
+     * @param timeUnit        时间单位
+     * @param algorithm       限流算法
+     * @param checkedCallBack 函数式
+     * @param <T>
+     * @return 函数执行结果
+     */
+    default <T> T allow(String key, long max, long ttl, TimeUnit timeUnit, RateLimiterAlgorithm algorithm, CheckedCallBack<T> checkedCallBack) {
+        boolean isAllowed = this.isAllowed(key, max, ttl, timeUnit, algorithm);
         if (isAllowed) {
-            try {
-                return checkedCallBack.get();
-            } catch (Throwable e) {
-                if (e instanceof Error) {
-                    throw (Error) e;
-                } else if (e instanceof IllegalAccessException ||
-                        e instanceof IllegalArgumentException ||
-                        e instanceof NoSuchMethodException) {
-                    throw new IllegalArgumentException(e);
-                } else if (e instanceof InvocationTargetException) {
-                    throw new RuntimeException(((InvocationTargetException) e).getTargetException());
-                } else if (e instanceof RuntimeException) {
-                    throw (RuntimeException) e;
-                } else if (e instanceof InterruptedException) {
-                    Thread.currentThread().interrupt();
-                }
-                throw new RuntimeException(e);
-            }
+            return call(checkedCallBack);
         }
         throw new RateLimiterException(key, max, ttl, timeUnit);
     }
+
+    /**
+     * 多条规则同时限流，例如 20/秒、600/分、10000/天，在一次脚本执行中检查并消耗全部规则，
+     * 任一规则拒绝时所有规则都不消耗。
+     * 每条规则按滑动窗口计数，与 RateLimiterAlgorithm#SLIDING_WINDOW 相同：ttl 时间内最多 max 次，跨窗口时按上一个窗口的计数加权估计
+     *
+     * @param key   自定义的key，请保证唯一
+     * @param rules 限流规则，不能为空
+     * @return 拒绝的规则，全部通过时为 null
+     */
+    @Nullable
+    default RateLimitRule tryAcquire(String key, List<RateLimitRule> rules) {
+        throw new UnsupportedOperationException(getClass().getName() + " does not support multiple rate limit rules");
+    }
+
+    /**
+     * 多条规则同时限流
+     *
+     * @param key   自定义的key，请保证唯一
+     * @param rules 限流规则，不能为空
+     * @return 是否允许
+     */
+    default boolean isAllowed(String key, List<RateLimitRule> rules) {
+        return this.tryAcquire(key, rules) == null;
+    }
+
+    /**
+     * 多条规则同时限流，被限制时抛出 RateLimiterException 异常，异常中为拒绝的规则
+     *
+     * @param key             自定义的key，请保证唯一
+     * @param rules           限流规则，不能为空
+     * @param checkedCallBack 函数式
+     * @param <T>
+     * @return 函数执行结果
+     */
+    default <T> T allow(String key, List<RateLimitRule> rules, CheckedCallBack<T> checkedCallBack) {
+        RateLimitRule rejected = this.tryAcquire(key, rules);
+        if (rejected == null) {
+            return call(checkedCallBack);
+        }
+        throw rejected.toException(key);
+    }
+
+    /**
+     * 执行函数，受检异常包装为 RuntimeException
+     */
+    private static <T> T call(CheckedCallBack<T> checkedCallBack) {
+        try {
+            return checkedCallBack.get();
+        } catch (Throwable e) {
+            if (e instanceof Error) {
+                throw (Error) e;
+            } else if (e instanceof IllegalAccessException ||
+                    e instanceof IllegalArgumentException ||
+                    e instanceof NoSuchMethodException) {
+                throw new IllegalArgumentException(e);
+            } else if (e instanceof InvocationTargetException) {
+                throw new RuntimeException(((InvocationTargetException) e).getTargetException());
+            } else if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            } else if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new RuntimeException(e);
+        }
+    }
 }
@@ -0,0 +1,189 @@
+package com.codedreamplus.redis.ratelimiter;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * redis 限流的降级
+ *
+ * <p>
+ * 访问 redis 前经过 {@link RateLimiterCircuitBreaker}，熔断、异常或超时时按 {@link RateLimiterFallbackPolicy} 判断，不再抛出异常。
+ * 配置了 timeout 时，redis 调用在单独的线程池中执行，请求线程最多等待 timeout，而不是 redis 命令的超时时间；
+ * 超时的调用可能已经在 redis 中计数。
+ * </p>
+ *
+ * @author cool
+ */
+@Slf4j
+public class RateLimiterFallback implements DisposableBean {
+	/**
+	 * 降级策略
+	 */
+	@Getter
+	private final RateLimiterFallbackPolicy policy;
+	/**
+	 * 集群的节点数，本地令牌桶的速率为 max / nodeCount
+	 */
+	private final int nodeCount;
+	@Getter
+	private final RateLimiterCircuitBreaker circuitBreaker;
+	/**
+	 * 请求线程等待 redis 的最长时间，为空或没有线程池时使用 redis 命令的超时时间
+	 */
+	@Getter
+	@Nullable
+	private final Duration timeout;
+	/**
+	 * 配置了 timeout 时执行 redis 调用的线程池
+	 */
+	@Nullable
+	private final ExecutorService executor;
+	private final LocalRateLimiterClient localRateLimiterClient = new LocalRateLimiterClient();
+
+	public RateLimiterFallback(RateLimiterFallbackPolicy policy, int nodeCount, RateLimiterCircuitBreaker circuitBreaker,
+							   @Nullable Duration timeout, @Nullable ExecutorService executor) {
+		this.policy = policy;
+		this.nodeCount = Math.max(nodeCount, 1);
+		this.circuitBreaker = circuitBreaker;
+		this.timeout = timeout;
+		this.executor = executor;
+	}
+
+	/**
+	 * 经过熔断器执行 redis 限流，失败时按降级策略判断
+	 *
+	 * @param key       自定义的key
+	 * @param max       支持的最大请求
+	 * @param ttl       时间
+	 * @param timeUnit  时间单位
+	 * @param redisCall redis 限流
+	 * @return 是否允许
+	 */
+	public boolean isAllowed(String key, long max, long ttl, TimeUnit timeUnit, Supplier<Boolean> redisCall) {
+		return execute(redisCall, () -> fallbackAllowed(key, max, ttl, timeUnit));
+	}
+
+	/**
+	 * 经过熔断器执行多规则 redis 限流，失败时按降级策略判断
+	 *
+	 * @param key       自定义的key
+	 * @param rules     限流规则
+	 * @param redisCall redis 限流
+	 * @return 拒绝的规则，全部通过时为 null
+	 */
+	@Nullable
+	public RateLimitRule tryAcquire(String key, List<RateLimitRule> rules, Supplier<RateLimitRule> redisCall) {
+		return execute(redisCall, () -> fallbackRejected(key, rules));
+	}
+
+	/**
+	 * 降级时是否允许
+	 *
+	 * @param key      自定义的key
+	 * @param max      支持的最大请求
+	 * @param ttl      时间
+	 * @param timeUnit 时间单位
+	 * @return 是否允许
+	 */
+	public boolean fallbackAllowed(String key, long max, long ttl, TimeUnit timeUnit) {
+		switch (policy) {
+			case FAIL_OPEN:
+				return true;
+			case FAIL_CLOSED:
+				return false;
+			default:
+				return localRateLimiterClient.isAllowed(key, share(max), ttl, timeUnit);
+		}
+	}
+
+	/**
+	 * 降级时拒绝的规则
+	 *
+	 * @param key   自定义的key
+	 * @param rules 限流规则
+	 * @return 拒绝的规则，全部通过时为 null
+	 */
+	@Nullable
+	public RateLimitRule fallbackRejected(String key, List<RateLimitRule> rules) {
+		switch (policy) {
+			case FAIL_OPEN:
+				return null;
+			case FAIL_CLOSED:
+				return rules.get(0);
+			default:
+				List<RateLimitRule> shares = rules.stream()
+					.map(rule -> RateLimitRule.of(share(rule.getMax()), rule.getTtl(), rule.getTimeUnit()))
+					.collect(Collectors.toList());
+				RateLimitRule rejected = localRateLimiterClient.tryAcquire(key, shares);
+				if (rejected == null) {
+					return null;
+				}
+				// 相同的规则按位置对应
+				for (int i = 0; i < shares.size(); i++) {
+					if (shares.get(i) == rejected) {
+						return rules.get(i);
+					}
+				}
+				return rules.get(0);
+		}
+	}
+
+	/**
+	 * 本节点分到的请求数，至少为 1
+	 */
+	private long share(long max) {
+		return Math.max(1L, (max + nodeCount - 1) / nodeCount);
+	}
+
+	private <T> T execute(Supplier<T> redisCall, Supplier<T> fallback) {
+		if (!circuitBreaker.tryAcquirePermission()) {
+			return fallback.get();
+		}
+		long start = System.nanoTime();
+		T result;
+		try {
+			result = executor == null || timeout == null ? redisCall.get() : executeWithTimeout(redisCall);
+		} catch (Exception e) {
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			circuitBreaker.onError();
+			log.debug("rate limiter redis call failed, fallback to {}", policy, e);
+			return fallback.get();
+		}
+		circuitBreaker.onSuccess(System.nanoTime() - start);
+		return result;
+	}
+
+	private <T> T executeWithTimeout(Supplier<T> redisCall) throws Exception {
+		Future<T> future = executor.submit(redisCall::get);
+		try {
+			return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException | InterruptedException e) {
+			future.cancel(true);
+			throw e;
+		} catch (ExecutionException e) {
+			Throwable cause = e.getCause();
+			throw cause instanceof Exception ? (Exception) cause : e;
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (executor != null) {
+			executor.shutdownNow();
+		}
+	}
+}
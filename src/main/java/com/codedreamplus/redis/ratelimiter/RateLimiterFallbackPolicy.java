@@ -0,0 +1,21 @@
+package com.codedreamplus.redis.ratelimiter;
+
+/**
+ * redis 不可用时的限流降级策略
+ *
+ * @author cool
+ */
+public enum RateLimiterFallbackPolicy {
+	/**
+	 * 全部放行
+	 */
+	FAIL_OPEN,
+	/**
+	 * 全部拒绝
+	 */
+	FAIL_CLOSED,
+	/**
+	 * 本地令牌桶，每个节点的速率为 max / 节点数
+	 */
+	LOCAL
+}
@@ -0,0 +1,17 @@
+package com.codedreamplus.redis.ratelimiter;
+
+/**
+ * 限流范围
+ *
+ * @author cool
+ */
+public enum RateLimiterScope {
+	/**
+	 * 集群，所有节点通过 redis 共享计数
+	 */
+	CLUSTER,
+	/**
+	 * 本节点，进程内令牌桶，不访问 redis
+	 */
+	LOCAL
+}
@@ -0,0 +1,134 @@
+package com.codedreamplus.redis.ratelimiter;
+
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 响应式限流客户端，与 RateLimiterClient 使用相同的 key 和限流脚本
+ *
+ * @author cool
+ */
+public interface ReactiveRateLimiterClient {
+
+    /**
+     * 服务是否被限流
+     *
+     * @param key 自定义的key，请保证唯一
+     * @param max 支持的最大请求
+     * @param ttl 时间,单位默认为秒（seconds）
+     * @return 是否允许
+     */
+    default Mono<Boolean> isAllowed(String key, long max, long ttl) {
+        return this.isAllowed(key, max, ttl, TimeUnit.SECONDS);
+    }
+
+    /**
+     * 服务是否被限流
+     *
+     * @param key      自定义的key，请保证唯一
+     * @param max      支持的最大请求
+     * @param ttl      时间
+     * @param timeUnit 时间单位
+     * @return 是否允许
+     */
+    Mono<Boolean> isAllowed(String key, long max, long ttl, TimeUnit timeUnit);
+
+    /**
+     * 服务是否被限流
+     *
+     * @param key       自定义的key，请保证唯一
+     * @param max       支持的最大请求
+     * @param ttl       时间
+     * @param timeUnit  时间单位
+     * @param algorithm 限流算法，默认实现只支持 SLIDING_LOG
+     * @return 是否允许
+     */
+    default Mono<Boolean> isAllowed(String key, long max, long ttl, TimeUnit timeUnit, RateLimiterAlgorithm algorithm) {
+        if (algorithm == RateLimiterAlgorithm.SLIDING_LOG) {
+            return this.isAllowed(key, max, ttl, timeUnit);
+        }
+        return Mono.error(new UnsupportedOperationException(getClass().getName() + " does not support rate limiter algorithm " + algorithm));
+    }
+
+    /**
+     * 服务限流，被限制时以 RateLimiterException 异常结束
+     *
+     * @param key      自定义的key，请保证唯一
+     * @param max      支持的最大请求
+     * @param ttl      时间，单位秒
+     * @param supplier 允许时订阅的 Mono
+     * @return 执行结果
+     */
+    default <T> Mono<T> allow(String key, long max, long ttl, Mono<T> supplier) {
+        return allow(key, max, ttl, TimeUnit.SECONDS, supplier);
+    }
+
+    /**
+     * 服务限流，被限制时以 RateLimiterException 异常结束
+     *
+     * @param key      自定义的key，请保证唯一
+     * @param max      支持的最大请求
+     * @param ttl      时间
+     * @param timeUnit 时间单位
+     * @param supplier 允许时订阅的 Mono
+     * @return 执行结果
+     */
+    default <T> Mono<T> allow(String key, long max, long ttl, TimeUnit timeUnit, Mono<T> supplier) {
+        return allow(key, max, ttl, timeUnit, RateLimiterAlgorithm.SLIDING_LOG, supplier);
+    }
+
+    /**
+     * 服务限流，被限制时以 RateLimiterException 异常结束
+     *
+     * @param key       自定义的key，请保证唯一
+     * @param max       支持的最大请求
+     * @param ttl       时间
+     * @param timeUnit  时间单位
+     * @param algorithm 限流算法
+     * @param supplier  允许时订阅的 Mono
+     * @return 执行结果
+     */
+    default <T> Mono<T> allow(String key, long max, long ttl, TimeUnit timeUnit, RateLimiterAlgorithm algorithm, Mono<T> supplier) {
+        return this.isAllowed(key, max, ttl, timeUnit, algorithm)
+                .flatMap(isAllowed -> isAllowed ? supplier : Mono.error(new RateLimiterException(key, max, ttl, timeUnit)));
+    }
+
+    /**
+     * 多条规则同时限流，在一次脚本执行中检查并消耗全部规则，任一规则拒绝时所有规则都不消耗，
+     * 规则的计算方式与 RateLimiterClient#tryAcquire 相同
+     *
+     * @param key   自定义的key，请保证唯一
+     * @param rules 限流规则，不能为空
+     * @return 拒绝的规则，全部通过时为 Optional.empty()
+     */
+    default Mono<Optional<RateLimitRule>> tryAcquire(String key, List<RateLimitRule> rules) {
+        return Mono.error(new UnsupportedOperationException(getClass().getName() + " does not support multiple rate limit rules"));
+    }
+
+    /**
+     * 多条规则同时限流
+     *
+     * @param key   自定义的key，请保证唯一
+     * @param rules 限流规则，不能为空
+     * @return 是否允许
+     */
+    default Mono<Boolean> isAllowed(String key, List<RateLimitRule> rules) {
+        return this.tryAcquire(key, rules).map(rejected -> !rejected.isPresent());
+    }
+
+    /**
+     * 多条规则同时限流，被限制时以 RateLimiterException 异常结束，异常中为拒绝的规则
+     *
+     * @param key      自定义的key，请保证唯一
+     * @param rules    限流规则，不能为空
+     * @param supplier 允许时订阅的 Mono
+     * @return 执行结果
+     */
+    default <T> Mono<T> allow(String key, List<RateLimitRule> rules, Mono<T> supplier) {
+        return this.tryAcquire(key, rules)
+                .flatMap(rejected -> rejected.isPresent() ? Mono.error(rejected.get().toException(key)) : supplier);
+    }
+}
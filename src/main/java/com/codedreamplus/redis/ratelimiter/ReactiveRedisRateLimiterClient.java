@@ -0,0 +1,125 @@
+package com.codedreamplus.redis.ratelimiter;
+
+import com.codedreamplus.redis.script.RedisScriptRegistry;
+import lombok.Setter;
+import org.springframework.core.env.Environment;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 响应式 redis 限流服务
+ *
+ * @author cool
+ */
+public class ReactiveRedisRateLimiterClient implements ReactiveRateLimiterClient {
+	/**
+	 * 失败的默认返回值
+	 */
+	private static final long FAIL_CODE = 0;
+	/**
+	 * reactiveRedisTemplate
+	 */
+	private final ReactiveStringRedisTemplate redisTemplate;
+	/**
+	 * 每种算法的限流脚本
+	 */
+	private final Map<RateLimiterAlgorithm, RedisScript<Long>> scripts;
+	/**
+	 * 多规则限流脚本
+	 */
+	private final RedisScript<Long> multiScript;
+	/**
+	 * env
+	 */
+	private final Environment environment;
+	/**
+	 * redis 失败、超时或熔断时的降级，为空时以异常结束
+	 */
+	@Setter
+	@Nullable
+	private RateLimiterFallback fallback;
+
+	public ReactiveRedisRateLimiterClient(ReactiveStringRedisTemplate redisTemplate, RedisScriptRegistry scriptRegistry,
+										  Environment environment) {
+		this.redisTemplate = redisTemplate;
+		this.scripts = RedisRateLimiterClient.scripts(scriptRegistry);
+		this.multiScript = RedisRateLimiterClient.multiScript(scriptRegistry);
+		this.environment = environment;
+	}
+
+	@Override
+	public Mono<Boolean> isAllowed(String key, long max, long ttl, TimeUnit timeUnit) {
+		return isAllowed(key, max, ttl, timeUnit, RateLimiterAlgorithm.SLIDING_LOG);
+	}
+
+	@Override
+	public Mono<Boolean> isAllowed(String key, long max, long ttl, TimeUnit timeUnit, RateLimiterAlgorithm algorithm) {
+		List<String> keys = Collections.singletonList(RedisRateLimiterClient.getRedisKey(environment, key, algorithm));
+		// 转为毫秒，pexpire
+		long ttlMillis = timeUnit.toMillis(ttl);
+		// 订阅时再取时间和请求 id，延迟订阅或重试时不会传入过期的时间
+		Mono<Boolean> result = Mono.defer(() -> {
+			// 毫秒，考虑主从策略和脚本回放机制，这个time由客户端获取传入
+			long now = System.currentTimeMillis();
+			List<String> args = Arrays.asList(max + "", ttlMillis + "", now + "", RedisRateLimiterClient.requestId());
+			return this.redisTemplate.execute(scripts.get(algorithm), keys, args)
+				.next()
+				.map(r -> r != FAIL_CODE)
+				// 结果为空返回失败
+				.defaultIfEmpty(false);
+		});
+		return withFallback(result, fallback -> fallback.fallbackAllowed(key, max, ttl, timeUnit));
+	}
+
+	@Override
+	public Mono<Optional<RateLimitRule>> tryAcquire(String key, List<RateLimitRule> rules) {
+		Assert.notEmpty(rules, "RateLimitRule list must not be empty");
+		List<String> keys = Collections.singletonList(RedisRateLimiterClient.getMultiRedisKey(environment, key));
+		// 订阅时再取时间，延迟订阅或重试时不会传入过期的时间
+		Mono<Optional<RateLimitRule>> result = Mono.defer(() -> this.redisTemplate.execute(multiScript, keys, RedisRateLimiterClient.multiArgs(rules))
+			.next()
+			.map(r -> Optional.ofNullable(RedisRateLimiterClient.rejectedRule(rules, r)))
+			// 结果为空按第一条规则拒绝
+			.defaultIfEmpty(Optional.of(rules.get(0))));
+		return withFallback(result, fallback -> Optional.ofNullable(fallback.fallbackRejected(key, rules)));
+	}
+
+	/**
+	 * 配置了降级时经过熔断器，失败、超时或熔断时按降级策略判断，超时不占用线程
+	 */
+	private <T> Mono<T> withFallback(Mono<T> redisCall, Function<RateLimiterFallback, T> fallbackResult) {
+		RateLimiterFallback fallback = this.fallback;
+		if (fallback == null) {
+			return redisCall;
+		}
+		RateLimiterCircuitBreaker circuitBreaker = fallback.getCircuitBreaker();
+		Duration timeout = fallback.getTimeout();
+		return Mono.defer(() -> {
+			if (!circuitBreaker.tryAcquirePermission()) {
+				return Mono.fromSupplier(() -> fallbackResult.apply(fallback));
+			}
+			long start = System.nanoTime();
+			return (timeout == null ? redisCall : redisCall.timeout(timeout))
+				.doOnNext(r -> circuitBreaker.onSuccess(System.nanoTime() - start))
+				// 下游取消不是 redis 失败，不计入统计，只释放探测
+				.doOnCancel(circuitBreaker::onCancel)
+				.onErrorResume(e -> {
+					circuitBreaker.onError();
+					return Mono.fromSupplier(() -> fallbackResult.apply(fallback));
+				});
+		});
+	}
+
+}
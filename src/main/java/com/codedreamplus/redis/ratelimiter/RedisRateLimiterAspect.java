@@ -17,7 +17,12 @@ import org.springframework.lang.NonNull;
 import org.springframework.util.Assert;
 
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 /**
  * redis 限流
@@ -35,6 +40,14 @@ public class RedisRateLimiterAspect implements ApplicationContextAware {
 	 * redis 限流服务
 	 */
 	private final RedisRateLimiterClient rateLimiterClient;
+	/**
+	 * 进程内限流服务，scope 为 LOCAL 时使用
+	 */
+	private final LocalRateLimiterClient localRateLimiterClient = new LocalRateLimiterClient();
+	/**
+	 * 注解规则转换后的缓存
+	 */
+	private final Map<RateLimiter, List<RateLimitRule>> ruleCache = new ConcurrentHashMap<>();
 	private ApplicationContext applicationContext;
 
 	/**
@@ -53,10 +66,26 @@ public class RedisRateLimiterAspect implements ApplicationContextAware {
 		} else {
 			rateKey = limitKey;
 		}
+		RateLimiterClient client = limiter.scope() == RateLimiterScope.LOCAL ? localRateLimiterClient : rateLimiterClient;
+		if (limiter.rules().length > 0) {
+			return client.allow(rateKey, getRules(limiter), point::proceed);
+		}
 		long max = limiter.max();
 		long ttl = limiter.ttl();
 		TimeUnit timeUnit = limiter.timeUnit();
-		return rateLimiterClient.allow(rateKey, max, ttl, timeUnit, point::proceed);
+		return client.allow(rateKey, max, ttl, timeUnit, limiter.algorithm(), point::proceed);
+	}
+
+	/**
+	 * 注解中的多条限流规则
+	 *
+	 * @param limiter 注解
+	 * @return 限流规则
+	 */
+	private List<RateLimitRule> getRules(RateLimiter limiter) {
+		return ruleCache.computeIfAbsent(limiter, key -> Arrays.stream(key.rules())
+			.map(rule -> RateLimitRule.of(rule.max(), rule.ttl(), rule.timeUnit()))
+			.collect(Collectors.toList()));
 	}
 
 	/**
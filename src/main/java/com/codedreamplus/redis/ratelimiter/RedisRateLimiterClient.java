@@ -1,13 +1,22 @@
 package com.codedreamplus.redis.ratelimiter;
 
-import lombok.RequiredArgsConstructor;
+import com.codedreamplus.redis.script.RedisScriptRegistry;
+import lombok.Setter;
 import org.springframework.core.env.Environment;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.core.script.ScriptExecutor;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * redis 限流服务
@@ -15,7 +24,6 @@ import java.util.concurrent.TimeUnit;
  * author cool
  * @date 2022/04/01
  */
-@RequiredArgsConstructor
 public class RedisRateLimiterClient implements RateLimiterClient {
 	/**
 	 * redis 限流 key 前缀
@@ -26,37 +34,156 @@ public class RedisRateLimiterClient implements RateLimiterClient {
 	 */
 	private static final long FAIL_CODE = 0;
 	/**
-	 * redisTemplate
+	 * 多规则限流脚本
 	 */
-	private final StringRedisTemplate redisTemplate;
+	private static final String MULTI_SCRIPT = "codedreamplus_rate_limiter_multi";
 	/**
-	 * redisScript
+	 * 多规则限流 redis key 后缀
 	 */
-	private final RedisScript<List<Long>> script;
+	private static final String MULTI_KEY_SUFFIX = ":multi";
+	/**
+	 * 使用 EVALSHA 执行脚本
+	 */
+	private final ScriptExecutor<String> scriptExecutor;
+	/**
+	 * 每种算法的限流脚本
+	 */
+	private final Map<RateLimiterAlgorithm, RedisScript<Long>> scripts;
+	/**
+	 * 多规则限流脚本
+	 */
+	private final RedisScript<Long> multiScript;
 	/**
 	 * env
 	 */
 	private final Environment environment;
+	/**
+	 * redis 失败、超时或熔断时的降级，为空时异常直接抛出
+	 */
+	@Setter
+	@Nullable
+	private RateLimiterFallback fallback;
+
+	public RedisRateLimiterClient(StringRedisTemplate redisTemplate, RedisScriptRegistry scriptRegistry, Environment environment) {
+		this.scriptExecutor = scriptRegistry.executor(redisTemplate);
+		this.scripts = scripts(scriptRegistry);
+		this.multiScript = multiScript(scriptRegistry);
+		this.environment = environment;
+	}
 
 	@Override
 	public boolean isAllowed(String key, long max, long ttl, TimeUnit timeUnit) {
+		return isAllowed(key, max, ttl, timeUnit, RateLimiterAlgorithm.SLIDING_LOG);
+	}
+
+	@Override
+	public boolean isAllowed(String key, long max, long ttl, TimeUnit timeUnit, RateLimiterAlgorithm algorithm) {
 		// redis key
-		String redisKeyBuilder = REDIS_KEY_PREFIX +
-			getApplicationName(environment) +":" + key;
-		List<String> keys = Collections.singletonList(redisKeyBuilder);
+		List<String> keys = Collections.singletonList(getRedisKey(environment, key, algorithm));
 		// 毫秒，考虑主从策略和脚本回放机制，这个time由客户端获取传入
 		long now = System.currentTimeMillis();
 		// 转为毫秒，pexpire
 		long ttlMillis = timeUnit.toMillis(ttl);
-		// 执行命令
-		List<Long> results = this.redisTemplate.execute(this.script, keys, max + "", ttlMillis + "", now + "");
-		// 结果为空返回失败
-		if (results == null || results.isEmpty()) {
-			return false;
+		String requestId = requestId();
+		return withFallback(key, max, ttl, timeUnit, () -> {
+			// 执行命令
+			Long result = this.scriptExecutor.execute(scripts.get(algorithm), keys, max + "", ttlMillis + "", now + "", requestId);
+			// 结果为空返回失败
+			return result != null && result != FAIL_CODE;
+		});
+	}
+
+	@Nullable
+	@Override
+	public RateLimitRule tryAcquire(String key, List<RateLimitRule> rules) {
+		List<String> keys = Collections.singletonList(getMultiRedisKey(environment, key));
+		Object[] args = multiArgs(rules).toArray();
+		RateLimiterFallback fallback = this.fallback;
+		if (fallback == null) {
+			return rejectedRule(rules, this.scriptExecutor.execute(multiScript, keys, args));
+		}
+		return fallback.tryAcquire(key, rules, () -> rejectedRule(rules, this.scriptExecutor.execute(multiScript, keys, args)));
+	}
+
+	/**
+	 * 执行 redis 限流，配置了降级时经过熔断器，失败、超时或熔断时按降级策略判断
+	 *
+	 * @param key       自定义的key
+	 * @param max       支持的最大请求
+	 * @param ttl       时间
+	 * @param timeUnit  时间单位
+	 * @param redisCall redis 限流
+	 * @return 是否允许
+	 */
+	protected boolean withFallback(String key, long max, long ttl, TimeUnit timeUnit, Supplier<Boolean> redisCall) {
+		RateLimiterFallback fallback = this.fallback;
+		return fallback == null ? redisCall.get() : fallback.isAllowed(key, max, ttl, timeUnit, redisCall);
+	}
+
+	/**
+	 * 限流的 redis key，limiter:应用名:key，滑动日志以外的算法追加算法后缀
+	 */
+	static String getRedisKey(Environment environment, String key, RateLimiterAlgorithm algorithm) {
+		return REDIS_KEY_PREFIX + getApplicationName(environment) + ":" + key + algorithm.getKeySuffix();
+	}
+
+	/**
+	 * 多规则限流的 redis key，所有规则保存在同一个 hash 中，集群下也在同一个 slot
+	 */
+	static String getMultiRedisKey(Environment environment, String key) {
+		return REDIS_KEY_PREFIX + getApplicationName(environment) + ":" + key + MULTI_KEY_SUFFIX;
+	}
+
+	/**
+	 * 多规则限流脚本
+	 */
+	static RedisScript<Long> multiScript(RedisScriptRegistry scriptRegistry) {
+		return scriptRegistry.getScript(MULTI_SCRIPT, Long.class);
+	}
+
+	/**
+	 * 多规则限流的脚本参数：当前时间、规则数量，之后每条规则为限流大小和毫秒时间窗口
+	 */
+	static List<String> multiArgs(List<RateLimitRule> rules) {
+		Assert.notEmpty(rules, "RateLimitRule list must not be empty");
+		List<String> args = new ArrayList<>(2 + rules.size() * 2);
+		// 毫秒，考虑主从策略和脚本回放机制，这个time由客户端获取传入
+		args.add(System.currentTimeMillis() + "");
+		args.add(rules.size() + "");
+		for (RateLimitRule rule : rules) {
+			args.add(rule.getMax() + "");
+			args.add(rule.getTimeUnit().toMillis(rule.getTtl()) + "");
+		}
+		return args;
+	}
+
+	/**
+	 * 脚本返回拒绝的规则序号（从 1 开始），0 为全部通过，结果为空时按第一条规则拒绝
+	 */
+	@Nullable
+	static RateLimitRule rejectedRule(List<RateLimitRule> rules, @Nullable Long result) {
+		if (result == null) {
+			return rules.get(0);
 		}
-		// 判断返回成功
-		Long result = results.get(0);
-		return result != FAIL_CODE;
+		return result == FAIL_CODE ? null : rules.get(result.intValue() - 1);
+	}
+
+	/**
+	 * 每种算法的限流脚本
+	 */
+	static Map<RateLimiterAlgorithm, RedisScript<Long>> scripts(RedisScriptRegistry scriptRegistry) {
+		Map<RateLimiterAlgorithm, RedisScript<Long>> scripts = new EnumMap<>(RateLimiterAlgorithm.class);
+		for (RateLimiterAlgorithm algorithm : RateLimiterAlgorithm.values()) {
+			scripts.put(algorithm, scriptRegistry.getScript(algorithm.getScript(), Long.class));
+		}
+		return scripts;
+	}
+
+	/**
+	 * 请求 id，滑动日志中同一毫秒的多个请求使用不同的成员
+	 */
+	static String requestId() {
+		return Long.toHexString(ThreadLocalRandom.current().nextLong());
 	}
 
 	private static String getApplicationName(Environment environment) {
@@ -0,0 +1,37 @@
+package com.codedreamplus.redis.script;
+
+import io.lettuce.core.cluster.event.ClusterTopologyChangedEvent;
+import io.lettuce.core.event.connection.ConnectionActivatedEvent;
+import io.lettuce.core.resource.ClientResources;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.lang.Nullable;
+import reactor.core.Disposable;
+
+/**
+ * 监听 Lettuce 的重连和集群拓扑变化，重新加载脚本
+ *
+ * @author cool
+ */
+class LettuceScriptReloader {
+
+	/**
+	 * 订阅事件
+	 *
+	 * @return 取消订阅，无法订阅时返回 null
+	 */
+	@Nullable
+	static Runnable subscribe(RedisConnectionFactory connectionFactory, RedisScriptRegistry registry) {
+		if (!(connectionFactory instanceof LettuceConnectionFactory)) {
+			return null;
+		}
+		ClientResources clientResources = ((LettuceConnectionFactory) connectionFactory).getClientResources();
+		if (clientResources == null) {
+			return null;
+		}
+		Disposable disposable = clientResources.eventBus().get()
+			.filter(event -> event instanceof ConnectionActivatedEvent || event instanceof ClusterTopologyChangedEvent)
+			.subscribe(event -> registry.reloadAsync());
+		return disposable::dispose;
+	}
+}
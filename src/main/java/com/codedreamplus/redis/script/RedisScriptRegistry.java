@@ -0,0 +1,212 @@
+package com.codedreamplus.redis.script;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.ScriptExecutor;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * lua 脚本注册表
+ *
+ * <p>
+ * 创建时读取 classpath 下所有 META-INF/scripts/*.lua，脚本名为文件名去掉 .lua。启动时 SCRIPT LOAD 到 redis（集群模式由 Lettuce 广播到所有节点），
+ * 通过 {@link #executor(RedisTemplate)} 执行时使用 EVALSHA，遇到 NOSCRIPT 使用 EVAL 重试，并异步重新加载全部脚本；
+ * Lettuce 重连或集群拓扑变化时同样重新加载。每个脚本的执行次数和耗时见 {@link #getStats()}。
+ * </p>
+ *
+ * @author cool
+ */
+@Slf4j
+public class RedisScriptRegistry implements InitializingBean, DisposableBean {
+	/**
+	 * 脚本位置
+	 */
+	public static final String SCRIPT_LOCATION = "classpath*:META-INF/scripts/*.lua";
+	private static final String NO_SCRIPT = "NOSCRIPT";
+	private final RedisConnectionFactory connectionFactory;
+	private final Map<String, RegisteredScript<Object>> scripts = new ConcurrentHashMap<>();
+	private final Map<RedisTemplate<?, ?>, ScriptExecutor<?>> executors = new ConcurrentHashMap<>();
+	private final AtomicBoolean reloading = new AtomicBoolean();
+	/**
+	 * 重新加载脚本的线程，避免在公共线程池中执行阻塞的 redis 调用
+	 */
+	private final ExecutorService reloadExecutor;
+	@Nullable
+	private Runnable unsubscribe;
+
+	public RedisScriptRegistry(RedisConnectionFactory connectionFactory) {
+		this.connectionFactory = connectionFactory;
+		CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("codedreamplus-script-reload-");
+		threadFactory.setDaemon(true);
+		this.reloadExecutor = Executors.newSingleThreadExecutor(threadFactory);
+		PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(getClass().getClassLoader());
+		try {
+			for (Resource resource : resolver.getResources(SCRIPT_LOCATION)) {
+				try (InputStream inputStream = resource.getInputStream()) {
+					register(StringUtils.stripFilenameExtension(resource.getFilename()), StreamUtils.copyToByteArray(inputStream));
+				}
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException("Cannot read lua scripts from " + SCRIPT_LOCATION, e);
+		}
+	}
+
+	/**
+	 * 注册脚本，已加载到 redis 后注册的脚本在第一次执行时加载
+	 *
+	 * @param name   脚本名
+	 * @param source 脚本内容
+	 */
+	public void register(String name, String source) {
+		register(name, source.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private void register(String name, byte[] bytes) {
+		scripts.put(name, new RegisteredScript<>(name, bytes, Object.class, new ScriptStats()));
+	}
+
+	/**
+	 * 获取脚本
+	 *
+	 * @param name       脚本名，文件名去掉 .lua
+	 * @param resultType 结果类型
+	 * @return RedisScript
+	 */
+	public <T> RegisteredScript<T> getScript(String name, Class<T> resultType) {
+		RegisteredScript<Object> script = scripts.get(name);
+		if (script == null) {
+			throw new IllegalArgumentException("Unknown lua script " + name + ", scripts: " + scripts.keySet());
+		}
+		return new RegisteredScript<>(name, script.getBytes(), resultType, script.getStats());
+	}
+
+	/**
+	 * 获取返回数组的脚本
+	 *
+	 * @param name 脚本名，文件名去掉 .lua
+	 * @param <E>  元素类型，整数回复为 Long
+	 * @return RedisScript
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public <E> RegisteredScript<List<E>> getListScript(String name) {
+		return (RegisteredScript) getScript(name, List.class);
+	}
+
+	/**
+	 * 执行注册表中脚本的 ScriptExecutor，使用 redisTemplate 的序列化方式
+	 *
+	 * @param redisTemplate redisTemplate
+	 * @return ScriptExecutor
+	 */
+	@SuppressWarnings("unchecked")
+	public <K> ScriptExecutor<K> executor(RedisTemplate<K, ?> redisTemplate) {
+		return (ScriptExecutor<K>) executors.computeIfAbsent(redisTemplate, template -> new RegistryScriptExecutor<>(redisTemplate, this));
+	}
+
+	/**
+	 * 加载全部脚本
+	 */
+	public void load() {
+		RedisConnection connection = connectionFactory.getConnection();
+		try {
+			for (RegisteredScript<Object> script : scripts.values()) {
+				connection.scriptLoad(script.getBytes());
+			}
+		} finally {
+			connection.close();
+		}
+		log.debug("loaded {} lua scripts", scripts.size());
+	}
+
+	/**
+	 * 异步加载全部脚本，正在加载时忽略
+	 */
+	public void reloadAsync() {
+		if (!reloading.compareAndSet(false, true)) {
+			return;
+		}
+		try {
+			CompletableFuture.runAsync(this::load, reloadExecutor).whenComplete((result, e) -> {
+				reloading.set(false);
+				if (e != null) {
+					log.warn("reload lua scripts failed", e);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			// 已关闭
+			reloading.set(false);
+		}
+	}
+
+	/**
+	 * 每个脚本的执行统计
+	 *
+	 * @return 脚本名 -> 统计
+	 */
+	public Map<String, ScriptStats> getStats() {
+		Map<String, ScriptStats> stats = new LinkedHashMap<>();
+		scripts.forEach((name, script) -> stats.put(name, script.getStats()));
+		return Collections.unmodifiableMap(stats);
+	}
+
+	/**
+	 * 异常是否为 NOSCRIPT
+	 */
+	static boolean isNoScript(Throwable e) {
+		for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+			String message = cause.getMessage();
+			if (message != null && message.contains(NO_SCRIPT)) {
+				return true;
+			}
+			if (cause.getCause() == cause) {
+				break;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		try {
+			load();
+		} catch (Exception e) {
+			// 启动时 redis 不可用不影响启动，第一次执行时加载
+			log.warn("preload lua scripts failed, they will be loaded on first use", e);
+		}
+		if (ClassUtils.isPresent("io.lettuce.core.event.EventBus", getClass().getClassLoader())) {
+			unsubscribe = LettuceScriptReloader.subscribe(connectionFactory, this);
+		}
+	}
+
+	@Override
+	public void destroy() {
+		if (unsubscribe != null) {
+			unsubscribe.run();
+		}
+		reloadExecutor.shutdownNow();
+	}
+}
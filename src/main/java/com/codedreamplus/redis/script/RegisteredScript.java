@@ -0,0 +1,51 @@
+package com.codedreamplus.redis.script;
+
+import lombok.Getter;
+import org.springframework.data.redis.core.script.RedisScript;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 注册表中的脚本，sha1 按实际发送的 UTF-8 字节计算
+ *
+ * @author cool
+ */
+@Getter
+public class RegisteredScript<T> implements RedisScript<T> {
+	/**
+	 * 脚本名，文件名去掉 .lua
+	 */
+	private final String name;
+	private final String sha1;
+	private final byte[] bytes;
+	private final Class<T> resultType;
+	private final ScriptStats stats;
+
+	RegisteredScript(String name, byte[] bytes, Class<T> resultType, ScriptStats stats) {
+		this.name = name;
+		this.bytes = bytes;
+		this.sha1 = sha1(bytes);
+		this.resultType = resultType;
+		this.stats = stats;
+	}
+
+	@Override
+	public String getScriptAsString() {
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+
+	private static String sha1(byte[] bytes) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-1").digest(bytes);
+			StringBuilder builder = new StringBuilder(digest.length * 2);
+			for (byte b : digest) {
+				builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return builder.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,51 @@
+package com.codedreamplus.redis.script;
+
+import org.springframework.data.redis.connection.RedisConnection;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultScriptExecutor;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+/**
+ * 使用 EVALSHA 执行注册表中的脚本，遇到 NOSCRIPT 时使用 EVAL 重试并异步重新加载全部脚本，记录每个脚本的耗时
+ *
+ * @author cool
+ */
+class RegistryScriptExecutor<K> extends DefaultScriptExecutor<K> {
+	private final RedisScriptRegistry registry;
+
+	RegistryScriptExecutor(RedisTemplate<K, ?> template, RedisScriptRegistry registry) {
+		super(template);
+		this.registry = registry;
+	}
+
+	@Override
+	protected <T> T eval(RedisConnection connection, RedisScript<T> script, ReturnType returnType, int numKeys,
+						 byte[][] keysAndArgs, RedisSerializer<T> resultSerializer) {
+		if (!(script instanceof RegisteredScript)) {
+			return super.eval(connection, script, returnType, numKeys, keysAndArgs, resultSerializer);
+		}
+		RegisteredScript<T> registered = (RegisteredScript<T>) script;
+		long start = System.nanoTime();
+		boolean error = true;
+		try {
+			Object result;
+			try {
+				result = connection.evalSha(registered.getSha1(), returnType, numKeys, keysAndArgs);
+			} catch (RuntimeException e) {
+				if (!RedisScriptRegistry.isNoScript(e)) {
+					throw e;
+				}
+				registered.getStats().noScript();
+				// EVAL 按 key 路由到对应节点并缓存脚本，故障切换后新节点上的其他脚本异步加载
+				result = connection.eval(registered.getBytes(), returnType, numKeys, keysAndArgs);
+				registry.reloadAsync();
+			}
+			error = false;
+			return result == null ? null : deserializeResult(resultSerializer, result);
+		} finally {
+			registered.getStats().record(System.nanoTime() - start, error);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package com.codedreamplus.redis.script;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 脚本执行统计
+ *
+ * @author cool
+ */
+public class ScriptStats {
+	private final LongAdder calls = new LongAdder();
+	private final LongAdder errors = new LongAdder();
+	private final LongAdder noScriptRetries = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	void record(long nanos, boolean error) {
+		calls.increment();
+		if (error) {
+			errors.increment();
+		}
+		totalNanos.add(nanos);
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+	void noScript() {
+		noScriptRetries.increment();
+	}
+
+	/**
+	 * 执行次数
+	 *
+	 * @return 次数
+	 */
+	public long getCalls() {
+		return calls.sum();
+	}
+
+	/**
+	 * 失败次数
+	 *
+	 * @return 次数
+	 */
+	public long getErrors() {
+		return errors.sum();
+	}
+
+	/**
+	 * 遇到 NOSCRIPT 后使用 EVAL 重试的次数
+	 *
+	 * @return 次数
+	 */
+	public long getNoScriptRetries() {
+		return noScriptRetries.sum();
+	}
+
+	/**
+	 * 平均耗时，纳秒
+	 *
+	 * @return 纳秒
+	 */
+	public long getAverageNanos() {
+		long count = calls.sum();
+		return count == 0 ? 0L : totalNanos.sum() / count;
+	}
+
+	/**
+	 * 最大耗时，纳秒
+	 *
+	 * @return 纳秒
+	 */
+	public long getMaxNanos() {
+		return maxNanos.get();
+	}
+
+	@Override
+	public String toString() {
+		return "ScriptStats(calls=" + getCalls() + ", errors=" + getErrors() + ", noScriptRetries=" + getNoScriptRetries()
+			+ ", averageNanos=" + getAverageNanos() + ", maxNanos=" + getMaxNanos() + ")";
+	}
+}
@@ -0,0 +1,202 @@
+package com.codedreamplus.redis.serializer;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 压缩序列化，超过阈值的值使用 Deflate 压缩
+ *
+ * <p>
+ * 格式：1 字节头 + 内容。头为 {@link #COMPRESSED} 时内容为 4 字节原始长度 + deflate 数据，
+ * 头为 {@link #PLAIN} 时内容为原始数据。没有头的旧数据（ProtoStuff、json、jdk 均不会以这两个字节开头）原样交给被包装的序列化，
+ * 因此开启压缩前后写入的值可以同时读取。未压缩且首字节与头不冲突的值不加头，
+ * 这样 {@link PrimitiveRedisSerializer} 写入的数字仍是 redis 原生格式，可以继续 INCR。
+ * </p>
+ *
+ * @author cool
+ */
+public class CompressionRedisSerializer implements TypedRedisSerializer {
+	/**
+	 * 未压缩
+	 */
+	public static final byte PLAIN = 0x00;
+	/**
+	 * deflate 压缩
+	 */
+	public static final byte COMPRESSED = 0x1F;
+	private static final int LENGTH_BYTES = 4;
+	private final RedisSerializer<Object> delegate;
+	/**
+	 * 压缩阈值，序列化后超过该字节数才压缩
+	 */
+	private final int threshold;
+	private final ThreadLocal<Deflater> deflater;
+	private final ThreadLocal<Inflater> inflater = ThreadLocal.withInitial(() -> new Inflater(true));
+	private final LongAdder compressedCount = new LongAdder();
+	private final LongAdder uncompressedCount = new LongAdder();
+	private final LongAdder originalBytes = new LongAdder();
+	private final LongAdder compressedBytes = new LongAdder();
+
+	public CompressionRedisSerializer(RedisSerializer<Object> delegate, int threshold, int level) {
+		this.delegate = delegate;
+		this.threshold = threshold;
+		this.deflater = ThreadLocal.withInitial(() -> new Deflater(level, true));
+	}
+
+	@Override
+	public byte[] serialize(Object object) throws SerializationException {
+		return compressIfNeeded(delegate.serialize(object));
+	}
+
+	@Override
+	public byte[] serializeTyped(Object object) throws SerializationException {
+		return compressIfNeeded(TypedRedisSerializer.typedSerialize(delegate, object));
+	}
+
+	private byte[] compressIfNeeded(byte[] bytes) {
+		if (bytes == null) {
+			return null;
+		}
+		if (bytes.length > threshold) {
+			byte[] compressed = compress(bytes);
+			if (compressed.length < bytes.length) {
+				compressedCount.increment();
+				originalBytes.add(bytes.length);
+				compressedBytes.add(compressed.length);
+				return compressed;
+			}
+		}
+		uncompressedCount.increment();
+		if (bytes.length > 0 && bytes[0] != PLAIN && bytes[0] != COMPRESSED) {
+			return bytes;
+		}
+		byte[] plain = new byte[bytes.length + 1];
+		plain[0] = PLAIN;
+		System.arraycopy(bytes, 0, plain, 1, bytes.length);
+		return plain;
+	}
+
+	@Override
+	public Object deserialize(byte[] bytes) throws SerializationException {
+		return delegate.deserialize(unwrap(bytes));
+	}
+
+	@Override
+	public <T> T deserialize(byte[] bytes, Class<T> type) throws SerializationException {
+		return TypedRedisSerializer.typedDeserialize(delegate, unwrap(bytes), type);
+	}
+
+	/**
+	 * 去掉头并解压，没有头的旧数据原样返回
+	 */
+	private byte[] unwrap(byte[] bytes) {
+		if (bytes == null || bytes.length == 0) {
+			return bytes;
+		}
+		if (bytes[0] == COMPRESSED) {
+			return decompress(bytes);
+		}
+		if (bytes[0] == PLAIN) {
+			return Arrays.copyOfRange(bytes, 1, bytes.length);
+		}
+		return bytes;
+	}
+
+	private byte[] compress(byte[] bytes) {
+		Deflater deflater = this.deflater.get();
+		deflater.reset();
+		deflater.setInput(bytes);
+		deflater.finish();
+		ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 2 + 1 + LENGTH_BYTES);
+		out.write(COMPRESSED);
+		out.write(bytes.length >>> 24);
+		out.write(bytes.length >>> 16);
+		out.write(bytes.length >>> 8);
+		out.write(bytes.length);
+		byte[] buffer = new byte[Math.min(bytes.length, 8192)];
+		while (!deflater.finished()) {
+			int count = deflater.deflate(buffer);
+			out.write(buffer, 0, count);
+		}
+		return out.toByteArray();
+	}
+
+	private byte[] decompress(byte[] bytes) {
+		if (bytes.length < 1 + LENGTH_BYTES) {
+			throw new SerializationException("Compressed value is truncated");
+		}
+		int length = ((bytes[1] & 0xFF) << 24) | ((bytes[2] & 0xFF) << 16) | ((bytes[3] & 0xFF) << 8) | (bytes[4] & 0xFF);
+		Inflater inflater = this.inflater.get();
+		inflater.reset();
+		inflater.setInput(bytes, 1 + LENGTH_BYTES, bytes.length - 1 - LENGTH_BYTES);
+		byte[] result = new byte[length];
+		try {
+			int offset = 0;
+			while (offset < length) {
+				int count = inflater.inflate(result, offset, length - offset);
+				if (count == 0) {
+					break;
+				}
+				offset += count;
+			}
+			if (offset != length) {
+				throw new SerializationException("Compressed value is corrupted, expected " + length + " bytes but got " + offset);
+			}
+		} catch (DataFormatException e) {
+			throw new SerializationException("Cannot decompress value", e);
+		}
+		return result;
+	}
+
+	/**
+	 * 压缩的次数
+	 *
+	 * @return 次数
+	 */
+	public long getCompressedCount() {
+		return compressedCount.sum();
+	}
+
+	/**
+	 * 未压缩的次数，包括低于阈值和压缩后没有变小的值
+	 *
+	 * @return 次数
+	 */
+	public long getUncompressedCount() {
+		return uncompressedCount.sum();
+	}
+
+	/**
+	 * 被压缩的值压缩前的总字节数
+	 *
+	 * @return 字节数
+	 */
+	public long getOriginalBytes() {
+		return originalBytes.sum();
+	}
+
+	/**
+	 * 被压缩的值压缩后的总字节数
+	 *
+	 * @return 字节数
+	 */
+	public long getCompressedBytes() {
+		return compressedBytes.sum();
+	}
+
+	/**
+	 * 压缩节省的总字节数
+	 *
+	 * @return 字节数
+	 */
+	public long getSavedBytes() {
+		return getOriginalBytes() - getCompressedBytes();
+	}
+}
@@ -0,0 +1,69 @@
+package com.codedreamplus.redis.serializer;
+
+import org.springframework.cache.support.NullValue;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.util.Arrays;
+
+/**
+ * 空值缓存序列化，NullValue 统一编码为固定字节，与序列化方式（ProtoStuff、json、jdk）无关
+ *
+ * <p>
+ * 编码与 spring cache RedisCache 的空值一致，便于互通
+ * </p>
+ *
+ * @author cool
+ */
+public class NullValueRedisSerializer implements TypedRedisSerializer {
+	/**
+	 * 空值的字节
+	 */
+	public static final byte[] NULL_VALUE_BYTES = RedisSerializer.java().serialize(NullValue.INSTANCE);
+	private final RedisSerializer<Object> delegate;
+
+	public NullValueRedisSerializer(RedisSerializer<Object> delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public byte[] serialize(Object object) throws SerializationException {
+		if (object instanceof NullValue) {
+			return NULL_VALUE_BYTES.clone();
+		}
+		return delegate.serialize(object);
+	}
+
+	@Override
+	public Object deserialize(byte[] bytes) throws SerializationException {
+		if (bytes != null && Arrays.equals(bytes, NULL_VALUE_BYTES)) {
+			return NullValue.INSTANCE;
+		}
+		return delegate.deserialize(bytes);
+	}
+
+	@Override
+	public <T> T deserialize(byte[] bytes, Class<T> type) throws SerializationException {
+		if (bytes != null && Arrays.equals(bytes, NULL_VALUE_BYTES)) {
+			return null;
+		}
+		return TypedRedisSerializer.typedDeserialize(delegate, bytes, type);
+	}
+
+	@Override
+	public byte[] serializeTyped(Object object) throws SerializationException {
+		if (object instanceof NullValue) {
+			return NULL_VALUE_BYTES.clone();
+		}
+		return TypedRedisSerializer.typedSerialize(delegate, object);
+	}
+
+	/**
+	 * 被包装的序列化方式
+	 *
+	 * @return RedisSerializer
+	 */
+	public RedisSerializer<Object> getDelegate() {
+		return delegate;
+	}
+}
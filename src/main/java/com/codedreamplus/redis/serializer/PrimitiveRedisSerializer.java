@@ -0,0 +1,173 @@
+package com.codedreamplus.redis.serializer;
+
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 基本类型快速路径序列化，其余类型交给被包装的序列化
+ *
+ * <p>
+ * Long、Integer、Double 写为 redis 原生的十进制字符串，与 INCR、INCRBY、INCRBYFLOAT 互通，读取时整数为 Long，小数为 Double；
+ * String 写为 {@link #STRING} + UTF-8，byte[] 写为 {@link #BYTES} + 原始字节。
+ * 只能包装 ProtoStuff、jdk 等二进制序列化，它们的输出不会以这些字节或十进制数字开头；
+ * json 会把 Float、Short、BigDecimal 等写为十进制数字，读取时变为 Long 或 Double，因此不支持。
+ * </p>
+ *
+ * @author cool
+ */
+public class PrimitiveRedisSerializer implements TypedRedisSerializer {
+	/**
+	 * 字符串
+	 */
+	public static final byte STRING = 0x01;
+	/**
+	 * 字节数组
+	 */
+	public static final byte BYTES = 0x02;
+	/**
+	 * long 的最大十进制位数，含负号
+	 */
+	private static final int MAX_LONG_LENGTH = 20;
+	private final RedisSerializer<Object> delegate;
+
+	public PrimitiveRedisSerializer(RedisSerializer<Object> delegate) {
+		Assert.isTrue(!(delegate instanceof GenericJackson2JsonRedisSerializer) && !(delegate instanceof Jackson2JsonRedisSerializer),
+			"PrimitiveRedisSerializer does not support json delegate, numbers would be read back as Long or Double");
+		this.delegate = delegate;
+	}
+
+	@Override
+	public byte[] serialize(Object object) throws SerializationException {
+		byte[] bytes = serializePrimitive(object);
+		return bytes != null ? bytes : delegate.serialize(object);
+	}
+
+	@Override
+	public byte[] serializeTyped(Object object) throws SerializationException {
+		byte[] bytes = serializePrimitive(object);
+		return bytes != null ? bytes : TypedRedisSerializer.typedSerialize(delegate, object);
+	}
+
+	@Override
+	public Object deserialize(byte[] bytes) throws SerializationException {
+		if (bytes == null || bytes.length == 0) {
+			return delegate.deserialize(bytes);
+		}
+		byte tag = bytes[0];
+		if (tag == STRING) {
+			return new String(bytes, 1, bytes.length - 1, StandardCharsets.UTF_8);
+		}
+		if (tag == BYTES) {
+			return Arrays.copyOfRange(bytes, 1, bytes.length);
+		}
+		Number number = parseNumber(bytes);
+		return number != null ? number : delegate.deserialize(bytes);
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <T> T deserialize(byte[] bytes, Class<T> type) throws SerializationException {
+		if (bytes == null || bytes.length == 0) {
+			return TypedRedisSerializer.typedDeserialize(delegate, bytes, type);
+		}
+		byte tag = bytes[0];
+		if (tag == STRING || tag == BYTES) {
+			return type.cast(deserialize(bytes));
+		}
+		Number number = parseNumber(bytes);
+		if (number == null) {
+			return TypedRedisSerializer.typedDeserialize(delegate, bytes, type);
+		}
+		if (type == Integer.class) {
+			return (T) Integer.valueOf(number.intValue());
+		}
+		if (type == Double.class) {
+			return (T) Double.valueOf(number.doubleValue());
+		}
+		if (type == Long.class) {
+			return (T) Long.valueOf(number.longValue());
+		}
+		if (type == String.class) {
+			return (T) new String(bytes, StandardCharsets.US_ASCII);
+		}
+		return type.cast(number);
+	}
+
+	/**
+	 * 基本类型的编码，其他类型返回 null
+	 */
+	@Nullable
+	private static byte[] serializePrimitive(@Nullable Object object) {
+		if (object instanceof String) {
+			byte[] utf8 = ((String) object).getBytes(StandardCharsets.UTF_8);
+			byte[] bytes = new byte[utf8.length + 1];
+			bytes[0] = STRING;
+			System.arraycopy(utf8, 0, bytes, 1, utf8.length);
+			return bytes;
+		}
+		if (object instanceof Long || object instanceof Integer) {
+			return object.toString().getBytes(StandardCharsets.US_ASCII);
+		}
+		if (object instanceof Double) {
+			double value = (Double) object;
+			// NaN、Infinity 不是 redis 的数字，交给被包装的序列化
+			if (Double.isNaN(value) || Double.isInfinite(value)) {
+				return null;
+			}
+			return object.toString().getBytes(StandardCharsets.US_ASCII);
+		}
+		if (object instanceof byte[]) {
+			byte[] raw = (byte[]) object;
+			byte[] bytes = new byte[raw.length + 1];
+			bytes[0] = BYTES;
+			System.arraycopy(raw, 0, bytes, 1, raw.length);
+			return bytes;
+		}
+		return null;
+	}
+
+	/**
+	 * 解析 redis 原生的十进制数字，整数为 Long，小数为 Double，不是数字时返回 null
+	 *
+	 * @param bytes 字节
+	 * @return 数字
+	 */
+	@Nullable
+	public static Number parseNumber(byte[] bytes) {
+		byte first = bytes[0];
+		if (first != '-' && (first < '0' || first > '9')) {
+			return null;
+		}
+		boolean integer = true;
+		for (int i = 0; i < bytes.length; i++) {
+			byte b = bytes[i];
+			if (b >= '0' && b <= '9') {
+				continue;
+			}
+			if (b == '-' && i == 0) {
+				continue;
+			}
+			if (b == '.' || b == 'e' || b == 'E' || b == '-' || b == '+') {
+				integer = false;
+				continue;
+			}
+			return null;
+		}
+		String text = new String(bytes, StandardCharsets.US_ASCII);
+		try {
+			if (integer && bytes.length <= MAX_LONG_LENGTH) {
+				return Long.parseLong(text);
+			}
+			return Double.parseDouble(text);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+}
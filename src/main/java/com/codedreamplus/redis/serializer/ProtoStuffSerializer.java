@@ -1,41 +1,308 @@
 package com.codedreamplus.redis.serializer;
 
+import io.protostuff.ByteBufferInput;
 import io.protostuff.LinkedBuffer;
 import io.protostuff.ProtobufIOUtil;
 import io.protostuff.Schema;
 import io.protostuff.runtime.RuntimeSchema;
+import org.springframework.data.redis.serializer.RedisElementReader;
+import org.springframework.data.redis.serializer.RedisElementWriter;
 import org.springframework.data.redis.serializer.RedisSerializer;
 import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
 import org.springframework.util.ObjectUtils;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
 /**
  * ProtoStuff 序列化
  *
+ * <p>
+ * 每个线程复用 LinkedBuffer 和 BytesWrapper，LinkedBuffer 按序列化结果的大小逐步扩容，最大 {@link #MAX_BUFFER_SIZE}。
+ * 同一线程重入时退回到每次新建，编码格式不变。
+ * </p>
+ *
+ * <p>
+ * 配置了 {@link ProtoStuffTypeRegistry} 时，已注册的类写为 {@link #TYPE_ID_MARKER} + varint 类型 ID + 该类的 schema 数据，
+ * 不再写入类名；未注册的类仍使用 BytesWrapper 按类名写入（首字节固定为 0x0A），两种格式可以同时读取。
+ * </p>
+ *
+ * <p>
+ * {@link #serializeTyped(Object)} 写为 {@link #TYPED_MARKER} + 该类的 schema 数据，不包含类型信息，
+ * 只能由 {@link #deserialize(byte[], Class)} 按目标类型读取。
+ * </p>
+ *
  * @author cool
  */
-public class ProtoStuffSerializer implements RedisSerializer<Object> {
+@SuppressWarnings("unchecked")
+public class ProtoStuffSerializer implements TypedRedisSerializer, RedisElementWriter<Object>, RedisElementReader<Object> {
 	public static final Schema<BytesWrapper> SCHEMA = RuntimeSchema.getSchema(BytesWrapper.class);
+	/**
+	 * 每个线程保留的 LinkedBuffer 最大字节数，更大的对象由 LinkedBuffer 临时追加节点
+	 */
+	private static final int MAX_BUFFER_SIZE = 64 * 1024;
+	private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+	/**
+	 * 按类型 ID 编码的首字节
+	 */
+	public static final byte TYPE_ID_MARKER = 0x7E;
+	/**
+	 * 按目标类型编码的首字节
+	 */
+	public static final byte TYPED_MARKER = 0x7D;
+	/**
+	 * 类型 ID 注册表，为 null 时全部按类名编码
+	 */
+	@Nullable
+	private final ProtoStuffTypeRegistry typeRegistry;
+
+	public ProtoStuffSerializer() {
+		this(null);
+	}
+
+	public ProtoStuffSerializer(@Nullable ProtoStuffTypeRegistry typeRegistry) {
+		this.typeRegistry = typeRegistry;
+	}
 
 	@Override
 	public byte[] serialize(Object object) throws SerializationException {
 		if (object == null) {
 			return null;
 		}
-		LinkedBuffer buffer = LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE);
-		try {
+		Integer typeId = typeRegistry == null ? null : typeRegistry.getId(object.getClass());
+		Buffers buffers = BUFFERS.get();
+		if (buffers.inUse) {
+			LinkedBuffer buffer = LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE);
+			if (typeId != null) {
+				return serializeWithTypeId(object, typeId, buffer);
+			}
 			return ProtobufIOUtil.toByteArray(new BytesWrapper<>(object), SCHEMA, buffer);
+		}
+		buffers.inUse = true;
+		BytesWrapper<Object> wrapper = buffers.wrapper;
+		try {
+			byte[] bytes;
+			if (typeId != null) {
+				bytes = serializeWithTypeId(object, typeId, buffers.buffer);
+			} else {
+				wrapper.setValue(object);
+				bytes = ProtobufIOUtil.toByteArray(wrapper, SCHEMA, buffers.buffer);
+			}
+			buffers.grow(bytes.length);
+			return bytes;
 		} finally {
-			buffer.clear();
+			wrapper.setValue(null);
+			buffers.buffer.clear();
+			buffers.inUse = false;
 		}
 	}
 
+	/**
+	 * 按类型 ID 编码：标记字节 + varint 类型 ID + 该类的 schema 数据
+	 */
+	private byte[] serializeWithTypeId(Object object, int typeId, LinkedBuffer buffer) {
+		byte[] body = ProtobufIOUtil.toByteArray(object, typeSchema(typeId), buffer);
+		int headerSize = 1 + varIntSize(typeId);
+		byte[] bytes = new byte[headerSize + body.length];
+		bytes[0] = TYPE_ID_MARKER;
+		int offset = 1;
+		int value = typeId;
+		while ((value & ~0x7F) != 0) {
+			bytes[offset++] = (byte) ((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		bytes[offset] = (byte) value;
+		System.arraycopy(body, 0, bytes, headerSize, body.length);
+		return bytes;
+	}
+
+	private Schema<Object> typeSchema(int typeId) {
+		Schema<?> schema = typeRegistry == null ? null : typeRegistry.getSchema(typeId);
+		if (schema == null) {
+			throw new SerializationException("Unknown ProtoStuff type id " + typeId + ", register it in ProtoStuffTypeRegistry");
+		}
+		return (Schema<Object>) schema;
+	}
+
+	private static int varIntSize(int value) {
+		int size = 1;
+		while ((value & ~0x7F) != 0) {
+			size++;
+			value >>>= 7;
+		}
+		return size;
+	}
+
 	@Override
 	public Object deserialize(byte[] bytes) throws SerializationException {
 		if (ObjectUtils.isEmpty(bytes)) {
 			return null;
 		}
-		BytesWrapper<Object> wrapper = new BytesWrapper<>();
-		ProtobufIOUtil.mergeFrom(bytes, wrapper, SCHEMA);
-		return wrapper.getValue();
+		if (bytes[0] == TYPE_ID_MARKER) {
+			int offset = 1;
+			int typeId = 0;
+			for (int shift = 0; ; shift += 7) {
+				if (offset >= bytes.length || shift > 28) {
+					throw new SerializationException("Malformed ProtoStuff type id");
+				}
+				byte b = bytes[offset++];
+				typeId |= (b & 0x7F) << shift;
+				if (b >= 0) {
+					break;
+				}
+			}
+			Schema<Object> schema = typeSchema(typeId);
+			Object message = schema.newMessage();
+			ProtobufIOUtil.mergeFrom(bytes, offset, bytes.length - offset, message, schema);
+			return message;
+		}
+		if (bytes[0] == TYPED_MARKER) {
+			throw new SerializationException("Value was written by serializeTyped, read it with a target type");
+		}
+		Buffers buffers = BUFFERS.get();
+		if (buffers.inUse) {
+			BytesWrapper<Object> wrapper = new BytesWrapper<>();
+			ProtobufIOUtil.mergeFrom(bytes, wrapper, SCHEMA);
+			return wrapper.getValue();
+		}
+		buffers.inUse = true;
+		BytesWrapper<Object> wrapper = buffers.wrapper;
+		try {
+			ProtobufIOUtil.mergeFrom(bytes, wrapper, SCHEMA);
+			return wrapper.getValue();
+		} finally {
+			wrapper.setValue(null);
+			buffers.inUse = false;
+		}
+	}
+
+	@Override
+	public <T> T deserialize(byte[] bytes, Class<T> type) throws SerializationException {
+		if (ObjectUtils.isEmpty(bytes)) {
+			return null;
+		}
+		if (bytes[0] != TYPED_MARKER) {
+			return type.cast(deserialize(bytes));
+		}
+		Schema<T> schema = RuntimeSchema.getSchema(type);
+		T message = schema.newMessage();
+		ProtobufIOUtil.mergeFrom(bytes, 1, bytes.length - 1, message, schema);
+		return message;
+	}
+
+	@Override
+	public byte[] serializeTyped(Object object) throws SerializationException {
+		if (object == null) {
+			return null;
+		}
+		// 已注册类型 ID 的类同样不含类名，且不需要目标类型也能读取
+		if (typeRegistry != null && typeRegistry.getId(object.getClass()) != null) {
+			return serialize(object);
+		}
+		Schema<Object> schema = (Schema<Object>) RuntimeSchema.getSchema(object.getClass());
+		Buffers buffers = BUFFERS.get();
+		boolean reuse = !buffers.inUse;
+		LinkedBuffer buffer = reuse ? buffers.buffer : LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE);
+		buffers.inUse = true;
+		try {
+			byte[] body = ProtobufIOUtil.toByteArray(object, schema, buffer);
+			byte[] bytes = new byte[body.length + 1];
+			bytes[0] = TYPED_MARKER;
+			System.arraycopy(body, 0, bytes, 1, body.length);
+			if (reuse) {
+				buffers.grow(bytes.length);
+			}
+			return bytes;
+		} finally {
+			buffer.clear();
+			if (reuse) {
+				buffers.inUse = false;
+			}
+		}
+	}
+
+	/**
+	 * 序列化为 ByteBuffer，供响应式连接直接写出
+	 *
+	 * <p>
+	 * 不是零拷贝：响应式连接可能在其他线程上延后写出，不能返回线程内复用的 LinkedBuffer 的视图，
+	 * 因此与 {@link #serialize(Object)} 相同，有一次从 LinkedBuffer 到 byte[] 的复制，ByteBuffer 只包装该数组
+	 * </p>
+	 */
+	@Override
+	public ByteBuffer write(Object object) {
+		byte[] bytes = serialize(object);
+		return bytes == null ? ByteBuffer.allocate(0) : ByteBuffer.wrap(bytes);
+	}
+
+	/**
+	 * 直接从 ByteBuffer 反序列化，支持堆外内存，不复制到 byte[]
+	 */
+	@Override
+	public Object read(ByteBuffer buffer) {
+		if (buffer == null || !buffer.hasRemaining()) {
+			return null;
+		}
+		ByteBuffer input = buffer.slice();
+		try {
+			if (input.get(0) == TYPE_ID_MARKER) {
+				input.get();
+				int typeId = 0;
+				for (int shift = 0; ; shift += 7) {
+					if (!input.hasRemaining() || shift > 28) {
+						throw new SerializationException("Malformed ProtoStuff type id");
+					}
+					byte b = input.get();
+					typeId |= (b & 0x7F) << shift;
+					if (b >= 0) {
+						break;
+					}
+				}
+				Schema<Object> schema = typeSchema(typeId);
+				Object message = schema.newMessage();
+				schema.mergeFrom(new ByteBufferInput(input.slice(), false), message);
+				return message;
+			}
+			if (input.get(0) == TYPED_MARKER) {
+				throw new SerializationException("Value was written by serializeTyped, read it with a target type");
+			}
+			BytesWrapper<Object> wrapper = new BytesWrapper<>();
+			SCHEMA.mergeFrom(new ByteBufferInput(input, false), wrapper);
+			return wrapper.getValue();
+		} catch (IOException e) {
+			throw new SerializationException("Cannot deserialize", e);
+		}
+	}
+
+	/**
+	 * 类型 ID 注册表
+	 *
+	 * @return 注册表，未配置时为 null
+	 */
+	@Nullable
+	public ProtoStuffTypeRegistry getTypeRegistry() {
+		return typeRegistry;
+	}
+
+	/**
+	 * 线程内复用的缓冲
+	 */
+	private static class Buffers {
+		private final BytesWrapper<Object> wrapper = new BytesWrapper<>();
+		private LinkedBuffer buffer = LinkedBuffer.allocate(LinkedBuffer.DEFAULT_BUFFER_SIZE);
+		private int size = LinkedBuffer.DEFAULT_BUFFER_SIZE;
+		private boolean inUse;
+
+		/**
+		 * 序列化结果超过当前缓冲时按 2 的幂扩容，避免 LinkedBuffer 每次追加节点
+		 */
+		private void grow(int length) {
+			if (length <= size || size >= MAX_BUFFER_SIZE) {
+				return;
+			}
+			size = Math.min(Integer.highestOneBit(length - 1) << 1, MAX_BUFFER_SIZE);
+			buffer = LinkedBuffer.allocate(size);
+		}
 	}
 }
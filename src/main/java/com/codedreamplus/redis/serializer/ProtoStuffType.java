@@ -0,0 +1,25 @@
+package com.codedreamplus.redis.serializer;
+
+import java.lang.annotation.*;
+
+/**
+ * 为 ProtoStuff 序列化的类指定类型 ID，序列化时写入 ID 代替类名
+ *
+ * <p>
+ * ID 需要在所有读写该数据的服务中保持一致，且不能复用
+ * </p>
+ *
+ * @author cool
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ProtoStuffType {
+
+	/**
+	 * 类型 ID，必须大于 0
+	 *
+	 * @return 类型 ID
+	 */
+	int value();
+}
@@ -0,0 +1,106 @@
+package com.codedreamplus.redis.serializer;
+
+import io.protostuff.Schema;
+import io.protostuff.runtime.RuntimeSchema;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ClassUtils;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ProtoStuff 类型 ID 注册表，已注册的类序列化时写入类型 ID 代替类名
+ *
+ * @author cool
+ */
+public class ProtoStuffTypeRegistry {
+	private final Map<Class<?>, Integer> ids = new ConcurrentHashMap<>();
+	private final Map<Integer, Schema<?>> schemas = new ConcurrentHashMap<>();
+
+	/**
+	 * 注册类型 ID
+	 *
+	 * @param type 类型
+	 * @param id   类型 ID，必须大于 0
+	 * @return this
+	 */
+	public synchronized ProtoStuffTypeRegistry register(Class<?> type, int id) {
+		if (id <= 0) {
+			throw new IllegalArgumentException("ProtoStuff type id must be positive, type:" + type.getName());
+		}
+		Integer registeredId = ids.get(type);
+		if (registeredId != null && registeredId != id) {
+			throw new IllegalArgumentException("ProtoStuff type " + type.getName() + " is already registered with id " + registeredId);
+		}
+		Schema<?> registered = schemas.get(id);
+		if (registered != null && registered.typeClass() != type) {
+			throw new IllegalArgumentException("ProtoStuff type id " + id + " is already registered by " + registered.typeClass().getName());
+		}
+		schemas.put(id, RuntimeSchema.getSchema(type));
+		ids.put(type, id);
+		return this;
+	}
+
+	/**
+	 * 注册类名对应的类型 ID
+	 *
+	 * @param className 类名
+	 * @param id        类型 ID，必须大于 0
+	 * @return this
+	 */
+	public ProtoStuffTypeRegistry register(String className, int id) {
+		return register(ClassUtils.resolveClassName(className, ProtoStuffTypeRegistry.class.getClassLoader()), id);
+	}
+
+	/**
+	 * 扫描包下标注了 {@link ProtoStuffType} 的类并注册
+	 *
+	 * @param basePackages 包名
+	 * @return this
+	 */
+	public ProtoStuffTypeRegistry scan(String... basePackages) {
+		ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false);
+		scanner.addIncludeFilter(new AnnotationTypeFilter(ProtoStuffType.class));
+		for (String basePackage : basePackages) {
+			for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+				Class<?> type = ClassUtils.resolveClassName(candidate.getBeanClassName(), ProtoStuffTypeRegistry.class.getClassLoader());
+				register(type, type.getAnnotation(ProtoStuffType.class).value());
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * 类型 ID
+	 *
+	 * @param type 类型
+	 * @return 类型 ID，未注册时为 null
+	 */
+	@Nullable
+	public Integer getId(Class<?> type) {
+		return ids.isEmpty() ? null : ids.get(type);
+	}
+
+	/**
+	 * 类型 ID 对应的 schema
+	 *
+	 * @param id 类型 ID
+	 * @return schema，未注册时为 null
+	 */
+	@Nullable
+	public Schema<?> getSchema(int id) {
+		return schemas.get(id);
+	}
+
+	/**
+	 * 已注册的类型数量
+	 *
+	 * @return 数量
+	 */
+	public int size() {
+		return ids.size();
+	}
+}
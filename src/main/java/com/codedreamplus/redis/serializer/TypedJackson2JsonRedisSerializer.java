@@ -0,0 +1,55 @@
+package com.codedreamplus.redis.serializer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * json 序列化，编码与 GenericJackson2JsonRedisSerializer 默认配置一致，按目标类型读取时复用每个类型的 ObjectReader
+ *
+ * @author cool
+ */
+public class TypedJackson2JsonRedisSerializer extends GenericJackson2JsonRedisSerializer implements TypedRedisSerializer {
+	private final ObjectMapper mapper;
+	private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+	public TypedJackson2JsonRedisSerializer() {
+		this(defaultObjectMapper());
+	}
+
+	public TypedJackson2JsonRedisSerializer(ObjectMapper mapper) {
+		super(mapper);
+		this.mapper = mapper;
+	}
+
+	@Override
+	@Nullable
+	public <T> T deserialize(@Nullable byte[] source, Class<T> type) throws SerializationException {
+		if (source == null || source.length == 0) {
+			return null;
+		}
+		ObjectReader reader = readers.computeIfAbsent(type, mapper::readerFor);
+		try {
+			return reader.readValue(source);
+		} catch (Exception e) {
+			throw new SerializationException("Could not read JSON: " + e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * 与 GenericJackson2JsonRedisSerializer 无参构造的配置一致
+	 */
+	@SuppressWarnings("deprecation")
+	private static ObjectMapper defaultObjectMapper() {
+		ObjectMapper mapper = new ObjectMapper();
+		GenericJackson2JsonRedisSerializer.registerNullValueSerializer(mapper, null);
+		mapper.enableDefaultTyping(ObjectMapper.DefaultTyping.NON_FINAL, JsonTypeInfo.As.PROPERTY);
+		return mapper;
+	}
+}
@@ -0,0 +1,62 @@
+package com.codedreamplus.redis.serializer;
+
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+import org.springframework.lang.Nullable;
+
+/**
+ * 支持按目标类型读写的序列化，读取时直接解码为目标类型，跳过多态解码
+ *
+ * @author cool
+ */
+public interface TypedRedisSerializer extends RedisSerializer<Object> {
+
+	/**
+	 * 按目标类型反序列化
+	 *
+	 * @param bytes 字节
+	 * @param type  目标类型
+	 * @param <T>   泛型
+	 * @return 对象
+	 * @throws SerializationException 反序列化失败
+	 */
+	@Nullable
+	default <T> T deserialize(@Nullable byte[] bytes, Class<T> type) throws SerializationException {
+		return type.cast(deserialize(bytes));
+	}
+
+	/**
+	 * 按对象的实际类型序列化，只能通过 {@link #deserialize(byte[], Class)} 读取
+	 *
+	 * @param object 对象
+	 * @return 字节
+	 * @throws SerializationException 序列化失败
+	 */
+	@Nullable
+	default byte[] serializeTyped(@Nullable Object object) throws SerializationException {
+		return serialize(object);
+	}
+
+	/**
+	 * 按目标类型反序列化，不支持时反序列化后转换类型
+	 */
+	@Nullable
+	static <T> T typedDeserialize(RedisSerializer<?> serializer, @Nullable byte[] bytes, Class<T> type) {
+		if (serializer instanceof TypedRedisSerializer) {
+			return ((TypedRedisSerializer) serializer).deserialize(bytes, type);
+		}
+		return type.cast(serializer.deserialize(bytes));
+	}
+
+	/**
+	 * 按对象的实际类型序列化，不支持时使用普通序列化
+	 */
+	@Nullable
+	@SuppressWarnings("unchecked")
+	static byte[] typedSerialize(RedisSerializer<?> serializer, @Nullable Object object) {
+		if (serializer instanceof TypedRedisSerializer) {
+			return ((TypedRedisSerializer) serializer).serializeTyped(object);
+		}
+		return ((RedisSerializer<Object>) serializer).serialize(object);
+	}
+}
@@ -0,0 +1,17 @@
+-- 布隆过滤器 key
+local key = KEYS[1]
+-- 每个元素的 hash 函数个数
+local k = tonumber(ARGV[1])
+-- 每个元素是否新增（有 bit 从 0 变为 1）
+local result = {}
+
+for i = 2, #ARGV, k do
+    local added = 0
+    for j = i, i + k - 1 do
+        if redis.call('setbit', key, ARGV[j], 1) == 0 then
+            added = 1
+        end
+    end
+    result[#result + 1] = added
+end
+return result
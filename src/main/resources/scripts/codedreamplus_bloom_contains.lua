@@ -0,0 +1,18 @@
+-- 布隆过滤器 key
+local key = KEYS[1]
+-- 每个元素的 hash 函数个数
+local k = tonumber(ARGV[1])
+-- 每个元素是否可能存在（所有 bit 均为 1）
+local result = {}
+
+for i = 2, #ARGV, k do
+    local exists = 1
+    for j = i, i + k - 1 do
+        if redis.call('getbit', key, ARGV[j]) == 0 then
+            exists = 0
+            break
+        end
+    end
+    result[#result + 1] = exists
+end
+return result
@@ -0,0 +1,11 @@
+-- 租约锁 key
+local key = KEYS[1]
+-- 加锁时写入的 token
+local token = ARGV[1]
+
+-- 只释放自己持有的锁，避免租约过期后误删其他节点的锁
+if redis.call('get', key) == token then
+    return redis.call('del', key)
+else
+    return 0
+end
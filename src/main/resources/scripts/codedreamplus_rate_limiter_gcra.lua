@@ -0,0 +1,24 @@
+-- GCRA：只保存理论到达时间（TAT），单位微秒
+-- 限流 key
+local key = KEYS[1]
+-- 限流大小
+local max = tonumber(ARGV[1])
+-- 时间窗口，毫秒
+local ttl = tonumber(ARGV[2])
+-- 考虑主从策略和脚本回放机制，这个time由客户端获取传入
+local now = tonumber(ARGV[3]) * 1000
+
+local window = ttl * 1000
+-- 每个请求的间隔
+local interval = window / max
+local tat = tonumber(redis.call('get', key))
+if tat == nil or tat < now then
+    tat = now
+end
+local newTat = tat + interval
+-- 超过突发容量
+if newTat - now > window then
+    return 0
+end
+redis.call('set', key, string.format('%.0f', newTat), 'px', math.ceil((newTat - now) / 1000))
+return 1
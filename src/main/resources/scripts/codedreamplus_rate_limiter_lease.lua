@@ -0,0 +1,34 @@
+-- 令牌租约：从令牌桶中一次取出多个令牌，与 codedreamplus_rate_limiter_token_bucket.lua 使用同一个 key
+-- 限流 key
+local key = KEYS[1]
+-- 桶容量
+local max = tonumber(ARGV[1])
+-- 补满整个桶的时间，毫秒
+local ttl = tonumber(ARGV[2])
+-- 考虑主从策略和脚本回放机制，这个time由客户端获取传入
+local now = tonumber(ARGV[3])
+-- 希望取出的令牌数
+local requested = tonumber(ARGV[4])
+
+local bucket = redis.call('hmget', key, 'tokens', 'ts')
+local tokens = tonumber(bucket[1])
+local ts = tonumber(bucket[2])
+if tokens == nil or ts == nil then
+    tokens = max
+    ts = now
+end
+-- 按流逝的时间补充令牌，时钟回拨时不补充
+if now > ts then
+    tokens = math.min(max, tokens + (now - ts) * max / ttl)
+    ts = now
+end
+
+local granted = math.min(requested, math.floor(tokens))
+if granted < 0 then
+    granted = 0
+end
+tokens = tokens - granted
+redis.call('hmset', key, 'tokens', string.format('%.6f', tokens), 'ts', ts)
+-- ttl 后桶已补满，与 key 不存在等价
+redis.call('pexpire', key, ttl)
+return granted
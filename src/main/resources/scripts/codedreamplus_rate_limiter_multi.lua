@@ -0,0 +1,70 @@
+-- 多规则滑动窗口计数：一个 hash 中按规则保存当前窗口编号、当前窗口计数、上一个窗口计数
+-- 每条规则按 ttl 对齐的窗口内最多 max 次，跨窗口时按上一个窗口的计数加权估计，与 SLIDING_WINDOW 算法一致
+-- 所有规则都通过才消耗，返回 0；否则不消耗，返回第一个拒绝的规则序号（从 1 开始）
+-- 限流 key
+local key = KEYS[1]
+-- 考虑主从策略和脚本回放机制，这个time由客户端获取传入
+local now = tonumber(ARGV[1])
+-- 规则数量，之后每条规则两个参数：限流大小、时间窗口（毫秒）
+local count = tonumber(ARGV[2])
+
+local prefixes = {}
+local windows = {}
+local currents = {}
+local previouses = {}
+local expire = 0
+for i = 1, count do
+    local max = tonumber(ARGV[1 + i * 2])
+    local ttl = tonumber(ARGV[2 + i * 2])
+    -- 带上规则序号，相同的规则各自计数
+    local prefix = i .. ':' .. max .. ':' .. ttl
+    local index = math.floor(now / ttl)
+    local counter = redis.call('hmget', key, prefix .. ':w', prefix .. ':c', prefix .. ':p')
+    local window = tonumber(counter[1])
+    local current = tonumber(counter[2]) or 0
+    local previous = tonumber(counter[3]) or 0
+    if window == nil then
+        window = index
+        current = 0
+        previous = 0
+    elseif window < index then
+        -- 进入新窗口，相邻窗口的计数成为上一个窗口的计数
+        if window == index - 1 then
+            previous = current
+        else
+            previous = 0
+        end
+        current = 0
+        window = index
+    end
+    -- 上一个窗口仍在滑动窗口内的比例，时钟回拨时按 1 计算
+    local weight = 1 - (now - window * ttl) / ttl
+    if weight > 1 then
+        weight = 1
+    elseif weight < 0 then
+        weight = 0
+    end
+    if previous * weight + current + 1 > max then
+        return i
+    end
+    prefixes[i] = prefix
+    windows[i] = window
+    currents[i] = current + 1
+    previouses[i] = previous
+    expire = math.max(expire, ttl * 2)
+end
+
+local values = {}
+for i = 1, count do
+    local prefix = prefixes[i]
+    values[#values + 1] = prefix .. ':w'
+    values[#values + 1] = windows[i]
+    values[#values + 1] = prefix .. ':c'
+    values[#values + 1] = currents[i]
+    values[#values + 1] = prefix .. ':p'
+    values[#values + 1] = previouses[i]
+end
+redis.call('hmset', key, unpack(values))
+-- key 跟随最长的规则过期
+redis.call('pexpire', key, expire)
+return 0
@@ -0,0 +1,44 @@
+-- 滑动窗口计数：hash 中保存当前窗口编号、当前窗口计数、上一个窗口计数
+-- 限流 key
+local key = KEYS[1]
+-- 限流大小
+local max = tonumber(ARGV[1])
+-- 时间窗口，毫秒
+local ttl = tonumber(ARGV[2])
+-- 考虑主从策略和脚本回放机制，这个time由客户端获取传入
+local now = tonumber(ARGV[3])
+
+local index = math.floor(now / ttl)
+local counter = redis.call('hmget', key, 'w', 'c', 'p')
+local window = tonumber(counter[1])
+local current = tonumber(counter[2]) or 0
+local previous = tonumber(counter[3]) or 0
+if window == nil then
+    window = index
+    current = 0
+    previous = 0
+elseif window < index then
+    -- 进入新窗口，相邻窗口的计数成为上一个窗口的计数
+    if window == index - 1 then
+        previous = current
+    else
+        previous = 0
+    end
+    current = 0
+    window = index
+end
+
+-- 上一个窗口仍在滑动窗口内的比例，时钟回拨时按 1 计算
+local weight = 1 - (now - window * ttl) / ttl
+if weight > 1 then
+    weight = 1
+elseif weight < 0 then
+    weight = 0
+end
+if previous * weight + current + 1 > max then
+    return 0
+end
+current = current + 1
+redis.call('hmset', key, 'w', window, 'c', current, 'p', previous)
+redis.call('pexpire', key, ttl * 2)
+return current